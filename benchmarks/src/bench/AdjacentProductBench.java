@@ -0,0 +1,66 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сума добутків сусідніх елементів (pr4, Variant2): початковий послідовний цикл проти AdjacentProductSum
+ * (блоки з компенсацією похибки) в одному потоці і на ForkJoinPool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class AdjacentProductBench {
+
+    private static final MethodHandle NAIVE = DefaultPackage.staticMethod("AdjacentProductSum", "naive",
+            double.class, double[].class);
+    private static final MethodHandle SEQUENTIAL = DefaultPackage.staticMethod("AdjacentProductSum", "computeSequential",
+            double.class, double[].class, int.class);
+    private static final MethodHandle PARALLEL = DefaultPackage.staticMethod("AdjacentProductSum", "compute",
+            double.class, ForkJoinPool.class, double[].class, int.class);
+
+    private static final int BLOCK_SIZE = 1 << 16;
+
+    @Param({"1000000", "10000000"})
+    public int size;
+
+    private double[] sequence;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        sequence = new double[size];
+        for (int i = 0; i < size; i++) {
+            sequence[i] = Math.round((1 + 9 * random.nextDouble()) * 100.0) / 100.0;
+        }
+        pool = new ForkJoinPool();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public double naiveLoop() throws Throwable {
+        return (double) NAIVE.invokeExact(sequence);
+    }
+
+    @Benchmark
+    public double compensatedSequential() throws Throwable {
+        return (double) SEQUENTIAL.invokeExact(sequence, BLOCK_SIZE);
+    }
+
+    @Benchmark
+    public double compensatedForkJoin() throws Throwable {
+        return (double) PARALLEL.invokeExact(pool, sequence, BLOCK_SIZE);
+    }
+}
@@ -0,0 +1,77 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пошук ходу ChessSearch (pr1, ChessPlayer) на фіксовану глибину: масштабування Lazy SMP за кількістю потоків.
+ * search - пошуків за секунду (прискорення до заданої глибини), nodes - вузлів за секунду усіма потоками.
+ * Таблиця транспозицій очищується перед кожним пошуком, щоб кожен виклик робив ту саму роботу.
+ * Для машини з іншою кількістю ядер: -p threads=1,2,...,N.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChessSearchBench {
+
+    private static final Class<?> POSITION = DefaultPackage.type("ChessPosition");
+    private static final Class<?> RESULT = DefaultPackage.type("ChessSearch$Result");
+    private static final MethodHandle FROM_FEN = DefaultPackage.staticMethod("ChessPosition", "fromFen",
+            POSITION, String.class);
+    private static final MethodHandle NEW_SEARCH = DefaultPackage.constructor("ChessSearch", int.class, int.class);
+    private static final MethodHandle SEARCH = DefaultPackage.virtualMethod("ChessSearch", "search",
+            RESULT, POSITION, long.class, int.class);
+    private static final MethodHandle CLEAR_TABLE = DefaultPackage.virtualMethod("ChessSearch", "clearTable", void.class);
+    private static final MethodHandle CLOSE = DefaultPackage.virtualMethod("ChessSearch", "close", void.class);
+    private static final MethodHandle GET_NODES = DefaultPackage.virtualMethod("ChessSearch$Result", "getNodes", long.class);
+
+    private static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    // "Kiwipete" - середина гри з великою кількістю взять, рокіровок і шахів
+    private static final String MIDDLEGAME = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    @Param({"start", "middlegame"})
+    public String position;
+
+    @Param({"6"})
+    public int depth;
+
+    private Object engine;
+    private Object root;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        engine = NEW_SEARCH.invoke(threads, 20);
+        root = FROM_FEN.invoke(position.equals("start") ? START : MIDDLEGAME);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Throwable {
+        CLOSE.invoke(engine);
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            nodes = 0;
+        }
+    }
+
+    @Benchmark
+    public void search(Counters counters) throws Throwable {
+        CLEAR_TABLE.invoke(engine);
+        Object result = SEARCH.invoke(engine, root, Long.MAX_VALUE, depth);
+        counters.nodes += (long) GET_NODES.invoke(result);
+    }
+}
@@ -0,0 +1,64 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Вихідний шлях AsyncSquaresDemo: задачі повертають Double[], головний потік робить addAll
+ * у CopyOnWriteArraySet. Вартість квадратична, тому розміри обмежено 10^5
+ * (для порівняння з SquaresBench з dedup = true на тих самих даних).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class CopyOnWriteDedupBench {
+
+    @Param({"10000", "100000"})
+    public int size;
+
+    private double[] input;
+    private int chunkSize;
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        input = SquaresBench.generate(size);
+        int cores = Runtime.getRuntime().availableProcessors();
+        int poolSize = cores > 1 ? cores : 2;
+        executor = Executors.newFixedThreadPool(poolSize);
+        chunkSize = Math.max(1, size / (poolSize * 4));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public int copyOnWriteArraySet() throws Exception {
+        CopyOnWriteArraySet<Double> resultSet = new CopyOnWriteArraySet<>();
+        List<Future<Double[]>> futures = new ArrayList<>();
+        for (int i = 0; i < input.length; i += chunkSize) {
+            int from = i;
+            int to = Math.min(input.length, i + chunkSize);
+            futures.add(executor.submit(() -> {
+                Double[] squares = new Double[to - from];
+                for (int j = from; j < to; j++) {
+                    squares[j - from] = input[j] * input[j];
+                }
+                return squares;
+            }));
+        }
+        for (Future<Double[]> future : futures) {
+            resultSet.addAll(Arrays.asList(future.get()));
+        }
+        return resultSet.size();
+    }
+}
@@ -0,0 +1,66 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Доступ до класів практичних робіт, які лежать у пакеті за замовчуванням.
+ * JMH не дозволяє бенчмарки без пакета, а з іменованого пакета імпортувати такі класи неможливо,
+ * тому вони знаходяться за іменем, а методи викликаються через MethodHandle
+ * (збережений у static final полі, JIT вбудовує його так само, як прямий виклик).
+ */
+final class DefaultPackage {
+
+    private DefaultPackage() {
+    }
+
+    static Class<?> type(String className) {
+        try {
+            return Class.forName(className, false, DefaultPackage.class.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Клас " + className + " не знайдено у classpath", e);
+        }
+    }
+
+    static MethodHandle staticMethod(String className, String name, Class<?> returnType, Class<?>... parameterTypes) {
+        Class<?> owner = type(className);
+        try {
+            return lookupIn(owner).findStatic(owner, name, MethodType.methodType(returnType, parameterTypes));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Метод " + className + "." + name + " не знайдено", e);
+        }
+    }
+
+    static MethodHandle virtualMethod(String className, String name, Class<?> returnType, Class<?>... parameterTypes) {
+        Class<?> owner = type(className);
+        try {
+            return lookupIn(owner).findVirtual(owner, name, MethodType.methodType(returnType, parameterTypes));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Метод " + className + "." + name + " не знайдено", e);
+        }
+    }
+
+    static MethodHandle constructor(String className, Class<?>... parameterTypes) {
+        Class<?> owner = type(className);
+        try {
+            return lookupIn(owner).findConstructor(owner, MethodType.methodType(void.class, parameterTypes));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Конструктор " + className + " не знайдено", e);
+        }
+    }
+
+    static Object staticField(String className, String name, Class<?> type) {
+        Class<?> owner = type(className);
+        try {
+            return lookupIn(owner).findStaticGetter(owner, name, type).invoke();
+        } catch (Throwable e) {
+            throw new IllegalStateException("Поле " + className + "." + name + " не знайдено", e);
+        }
+    }
+
+    // Класи практичних робіт package-private, тому потрібен приватний lookup
+    private static MethodHandles.Lookup lookupIn(Class<?> owner) throws IllegalAccessException {
+        return MethodHandles.privateLookupIn(owner, MethodHandles.lookup());
+    }
+}
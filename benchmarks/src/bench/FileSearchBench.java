@@ -0,0 +1,108 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.invoke.MethodHandle;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Пошук файлів більших за поріг (pr3, FileCounterTask, NioFileCounterTask та BoundedFileTraversal) на згенерованому дереві
+ * директорій заданої глибини. Дерево створюється один раз на форк; після першої ітерації
+ * метадані знаходяться у кеші ОС, тобто вимірюється "теплий" обхід.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class FileSearchBench {
+
+    private static final int FAN_OUT = 4;
+    private static final int FILES_PER_DIR = 16;
+    private static final long SIZE_THRESHOLD = 2048;
+
+    private static final MethodHandle NEW_COUNTER_TASK = DefaultPackage.constructor("FileSearchApp$FileCounterTask",
+            File.class, long.class);
+    private static final MethodHandle NEW_NIO_COUNTER_TASK = DefaultPackage.constructor("NioFileCounterTask",
+            Path.class, long.class);
+    private static final MethodHandle NEW_BOUNDED_TRAVERSAL = DefaultPackage.constructor("BoundedFileTraversal",
+            int.class);
+    private static final MethodHandle BOUNDED_COUNT = DefaultPackage.virtualMethod("BoundedFileTraversal", "count",
+            DefaultPackage.type("BoundedFileTraversal$Stats"), Path.class, long.class);
+
+    // Глибина дерева: 2 -> 21 директорія, 4 -> 341, 6 -> 5461 (по FILES_PER_DIR файлів у кожній)
+    @Param({"2", "4", "6"})
+    public int depth;
+
+    private Path root;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("file-search-bench");
+        createTree(root, depth, new Random(42));
+        pool = new ForkJoinPool();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        pool.shutdown();
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public Object forkJoinFileCounter() throws Throwable {
+        return pool.invoke((ForkJoinTask<?>) NEW_COUNTER_TASK.invoke(root.toFile(), SIZE_THRESHOLD));
+    }
+
+    @Benchmark
+    public Object forkJoinNioFileCounter() throws Throwable {
+        return pool.invoke((ForkJoinTask<?>) NEW_NIO_COUNTER_TASK.invoke(root, SIZE_THRESHOLD));
+    }
+
+    // Окремий стан, щоб параметр ioThreads не множив запуски інших бенчмарків
+    @State(Scope.Benchmark)
+    public static class Bounded {
+        @Param({"2", "8"})
+        public int ioThreads;
+
+        Object traversal;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Throwable {
+            traversal = NEW_BOUNDED_TRAVERSAL.invoke(ioThreads);
+        }
+    }
+
+    @Benchmark
+    public Object boundedTraversal(Bounded bounded) throws Throwable {
+        return BOUNDED_COUNT.invoke(bounded.traversal, root, SIZE_THRESHOLD);
+    }
+
+    static void createTree(Path dir, int depth, Random random) throws IOException {
+        for (int i = 0; i < FILES_PER_DIR; i++) {
+            // Розмір задається без запису даних (розріджений файл), тому дерево створюється швидко
+            try (RandomAccessFile file = new RandomAccessFile(dir.resolve("file" + i + ".dat").toFile(), "rw")) {
+                file.setLength(random.nextInt(4096));
+            }
+        }
+        if (depth == 0) return;
+        for (int i = 0; i < FAN_OUT; i++) {
+            Path child = Files.createDirectory(dir.resolve("dir" + i));
+            createTree(child, depth - 1, random);
+        }
+    }
+}
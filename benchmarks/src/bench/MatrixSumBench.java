@@ -0,0 +1,92 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Суми стовпців матриці (pr3): Work Stealing, Work Dealing, row-major блоки рядків
+ * на int[][] і на плоскому int[], SIMD-ядро. Пули створюються один раз у @Setup,
+ * тому у вимір потрапляє лише сама робота.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class MatrixSumBench {
+
+    private static final Class<?> FLAT_MATRIX = DefaultPackage.type("FlatMatrix");
+
+    private static final MethodHandle GENERATE = DefaultPackage.staticMethod("MatrixSumBenchmark", "generateMatrix",
+            int[][].class, int.class, int.class, int.class, int.class);
+    private static final MethodHandle STEALING = DefaultPackage.staticMethod("MatrixSumBenchmark", "sumColumnsStealing",
+            long[].class, ForkJoinPool.class, int[][].class, int.class);
+    private static final MethodHandle DEALING = DefaultPackage.staticMethod("MatrixSumBenchmark", "sumColumnsDealing",
+            long[].class, ExecutorService.class, int[][].class, int.class);
+    private static final MethodHandle TO_FLAT = DefaultPackage.staticMethod("FlatMatrix", "from",
+            FLAT_MATRIX, int[][].class, int.class);
+    private static final MethodHandle ROW_BLOCKS = DefaultPackage.staticMethod("RowBlockColumnSum", "sumColumns",
+            long[].class, ForkJoinPool.class, int[][].class, int.class);
+    private static final MethodHandle ROW_BLOCKS_FLAT = DefaultPackage.staticMethod("RowBlockColumnSum", "sumColumns",
+            long[].class, ForkJoinPool.class, FLAT_MATRIX);
+    private static final MethodHandle ROW_BLOCKS_SIMD = DefaultPackage.staticMethod("RowBlockColumnSum", "sumColumnsSimd",
+            long[].class, ForkJoinPool.class, FLAT_MATRIX);
+
+    // Форма матриці "рядки x стовпці": квадратна, висока, широка та дуже висока вузька
+    @Param({"1000x1000", "10000x1000", "1000x10000", "100000x100"})
+    public String shape;
+
+    private int[][] matrix;
+    private Object flatMatrix;
+    private int cols;
+    private ForkJoinPool fjPool;
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        String[] parts = shape.split("x");
+        int rows = Integer.parseInt(parts[0]);
+        cols = Integer.parseInt(parts[1]);
+        matrix = (int[][]) GENERATE.invoke(rows, cols, -100, 100);
+        flatMatrix = TO_FLAT.invoke(matrix, cols);
+        fjPool = new ForkJoinPool();
+        executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fjPool.shutdown();
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public long[] workStealing() throws Throwable {
+        return (long[]) STEALING.invoke(fjPool, matrix, cols);
+    }
+
+    @Benchmark
+    public long[] workDealing() throws Throwable {
+        return (long[]) DEALING.invoke(executor, matrix, cols);
+    }
+
+    @Benchmark
+    public long[] rowBlocks() throws Throwable {
+        return (long[]) ROW_BLOCKS.invoke(fjPool, matrix, cols);
+    }
+
+    @Benchmark
+    public long[] rowBlocksFlat() throws Throwable {
+        return (long[]) ROW_BLOCKS_FLAT.invoke(fjPool, flatMatrix);
+    }
+
+    @Benchmark
+    public long[] rowBlocksSimd() throws Throwable {
+        return (long[]) ROW_BLOCKS_SIMD.invoke(fjPool, flatMatrix);
+    }
+}
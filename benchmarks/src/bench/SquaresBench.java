@@ -0,0 +1,77 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Примітивний конвеєр квадратів (pr2): AsyncSquaresDemo.computeSquares з розбиттям від ChunkPlanner,
+ * без видалення дублікатів і з вставкою у ConcurrentDoubleHashSet прямо з задач.
+ * Порівняння з CopyOnWriteArraySet - у CopyOnWriteDedupBench.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SquaresBench {
+
+    private static final Class<?> CONCURRENT_SET = DefaultPackage.type("ConcurrentDoubleHashSet");
+    private static final Class<?> PLAN = DefaultPackage.type("ChunkPlanner$Plan");
+
+    private static final MethodHandle COMPUTE_SQUARES = DefaultPackage.staticMethod("AsyncSquaresDemo", "computeSquares",
+            double[].class, double[].class, ExecutorService.class, int.class, CONCURRENT_SET);
+    private static final MethodHandle NEW_SET = DefaultPackage.constructor("ConcurrentDoubleHashSet", int.class, int.class);
+    private static final MethodHandle NEW_PLANNER = DefaultPackage.constructor("ChunkPlanner", int.class, int.class, long.class);
+    private static final MethodHandle PLAN_FOR = DefaultPackage.virtualMethod("ChunkPlanner", "plan", PLAN, int.class);
+    private static final MethodHandle CHUNK_SIZE = DefaultPackage.virtualMethod("ChunkPlanner$Plan", "getChunkSize", int.class);
+    private static final MethodHandle TO_ARRAY = DefaultPackage.virtualMethod("ConcurrentDoubleHashSet", "toArray", double[].class);
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean dedup;
+
+    private double[] input;
+    private int poolSize;
+    private int chunkSize;
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        input = generate(size);
+        int cores = Runtime.getRuntime().availableProcessors();
+        poolSize = cores > 1 ? cores : 2;
+        executor = Executors.newFixedThreadPool(poolSize);
+        Object planner = NEW_PLANNER.invoke(poolSize, 4, 50_000L);
+        chunkSize = (int) CHUNK_SIZE.invoke(PLAN_FOR.invoke(planner, size));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public Object squares() throws Throwable {
+        Object unique = dedup ? NEW_SET.invoke(size, poolSize * 16) : null;
+        double[] squares = (double[]) COMPUTE_SQUARES.invoke(input, executor, chunkSize, unique);
+        return unique != null ? TO_ARRAY.invoke(unique) : squares;
+    }
+
+    // Приблизно 60% унікальних значень, як у задачі з округленими числами
+    static double[] generate(int size) {
+        Random random = new Random(42);
+        double[] input = new double[size];
+        for (int i = 0; i < size; i++) {
+            input[i] = random.nextInt(size) / 100.0;
+        }
+        return input;
+    }
+}
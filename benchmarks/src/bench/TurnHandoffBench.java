@@ -0,0 +1,95 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Передача ходу у покрокових партіях (pr1, ChessGame): час однієї передачі ходу.
+ * semaphoreRing - початкова схема ChessGame (семафор на гравця, потік на гравця), узагальнена на N гравців;
+ * parkUnparkRing - TurnRing (volatile turn + park/unpark); eventLoop - TurnScheduler.runEventLoop на одному потоці.
+ * manyGames* - GAMES партій одночасно, щоб видно було ціну потоку на гравця проти пулу.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class TurnHandoffBench {
+
+    private static final Class<?> TURN_ACTION = DefaultPackage.type("TurnAction");
+    private static final MethodHandle RUN_THREADED = DefaultPackage.staticMethod("TurnScheduler", "runThreaded",
+            DefaultPackage.type("TurnScheduler$Result"), int.class, int.class, int.class, TURN_ACTION);
+    private static final MethodHandle RUN_EVENT_LOOP = DefaultPackage.staticMethod("TurnScheduler", "runEventLoop",
+            DefaultPackage.type("TurnScheduler$Result"), int.class, int.class, int.class, TURN_ACTION, int.class, int.class);
+    private static final Object NO_ACTION = DefaultPackage.staticField("TurnAction", "NONE", TURN_ACTION);
+
+    // Передач ходу за виклик; ділиться без остачі на players * GAMES
+    private static final int HANDOFFS = 1 << 15;
+    private static final int GAMES = 128;
+    private static final int MOVES_PER_SLICE = 64;
+
+    @Param({"2", "4"})
+    public int players;
+
+    @Benchmark
+    @OperationsPerInvocation(HANDOFFS)
+    public void semaphoreRing() throws InterruptedException {
+        runSemaphoreGame(players, HANDOFFS / players);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(HANDOFFS)
+    public Object parkUnparkRing() throws Throwable {
+        return RUN_THREADED.invoke(1, players, HANDOFFS / players, NO_ACTION);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(HANDOFFS)
+    public Object eventLoop() throws Throwable {
+        return RUN_EVENT_LOOP.invoke(1, players, HANDOFFS / players, NO_ACTION, 1, MOVES_PER_SLICE);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(HANDOFFS)
+    public Object manyGamesParkUnpark() throws Throwable {
+        return RUN_THREADED.invoke(GAMES, players, HANDOFFS / players / GAMES, NO_ACTION);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(HANDOFFS)
+    public Object manyGamesEventLoop() throws Throwable {
+        return RUN_EVENT_LOOP.invoke(GAMES, players, HANDOFFS / players / GAMES, NO_ACTION,
+                Runtime.getRuntime().availableProcessors(), MOVES_PER_SLICE);
+    }
+
+    // Схема ChessGame/ChessPlayer до TurnRing: гравець i чекає на свій семафор і звільняє семафор наступного
+    private static void runSemaphoreGame(int players, int moves) throws InterruptedException {
+        Semaphore[] semaphores = new Semaphore[players];
+        for (int i = 0; i < players; i++) {
+            semaphores[i] = new Semaphore(i == 0 ? 1 : 0);
+        }
+        Thread[] threads = new Thread[players];
+        for (int i = 0; i < players; i++) {
+            Semaphore mine = semaphores[i];
+            Semaphore next = semaphores[(i + 1) % players];
+            threads[i] = new Thread(() -> {
+                try {
+                    for (int move = 0; move < moves; move++) {
+                        mine.acquire();
+                        next.release();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+}
@@ -0,0 +1,217 @@
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Спільний для всього ланцюжка CompletableFuture крайній термін.
+ * Deadline передається у кожен етап (thenCompose/thenCombine/allOf) явно - ThreadLocal не переходить між потоками.
+ * Задачі, запущені через supplyAsync(), та future, передані у bound(), відстежуються:
+ * коли час вийшов (або викликано cancel()), незавершені задачі переривають свої потоки,
+ * а їх future завершуються з TimeoutException (CancellationException), тож allOf не чекає вічно.
+ * Дочірній Deadline (child) ніколи не довший за батьківський і скасовується разом з ним.
+ * Коли результат уже отримано, термін треба закрити (close()): інакше він до свого закінчення лишається
+ * в черзі таймера, а дочірній - ще й у батьківському, що для довгоживучого батька означає необмежене зростання.
+ */
+public class Deadline implements AutoCloseable {
+
+    private static final ScheduledThreadPoolExecutor TIMER = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "deadline-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        // Скасований таймер одразу видаляється з черги, а не чекає там свого часу
+        TIMER.setRemoveOnCancelPolicy(true);
+    }
+
+    private static final int ACTIVE = 0;
+    private static final int EXPIRED = 1;
+    private static final int CANCELLED = 2;
+
+    private final long deadlineNanos;
+    private final Deadline parent;
+    // null, поки конструктор не повернувся - тоді таймер, що вже спрацював, скасовувати не треба
+    private volatile ScheduledFuture<?> timer;
+    private final AtomicInteger state = new AtomicInteger(ACTIVE);
+    private final Set<Tracked> tracked = ConcurrentHashMap.newKeySet();
+    private final Set<Deadline> children = ConcurrentHashMap.newKeySet();
+    private final LongAdder interrupted = new LongAdder();
+
+    private Deadline(long timeoutNanos, Deadline parent) {
+        // Обмеження, щоб now + timeout не переповнився
+        timeoutNanos = Math.min(timeoutNanos, Long.MAX_VALUE / 4);
+        this.deadlineNanos = System.nanoTime() + timeoutNanos;
+        this.parent = parent;
+        this.timer = TIMER.schedule(this::expire, timeoutNanos, TimeUnit.NANOSECONDS);
+        if (state.get() != ACTIVE) release(); // встиг спрацювати раніше, ніж було присвоєно timer
+    }
+
+    public static Deadline after(long millis) {
+        return new Deadline(TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis)), null);
+    }
+
+    /**
+     * Дочірній термін: не пізніше за цей і не довший за maxMillis від поточного моменту.
+     */
+    public Deadline child(long maxMillis) {
+        Deadline child = new Deadline(Math.min(remainingNanos(), TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxMillis))), this);
+        children.add(child);
+        int current = state.get();
+        if (current == CANCELLED) child.cancel();
+        // Дочірній міг завершитися ще до додавання - тоді його release() не знайшов, що видаляти
+        if (child.state.get() != ACTIVE) children.remove(child);
+        return child;
+    }
+
+    public long remainingNanos() {
+        if (state.get() != ACTIVE) return 0;
+        return Math.max(0, deadlineNanos - System.nanoTime());
+    }
+
+    public long remainingMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(remainingNanos());
+    }
+
+    public boolean isExpired() {
+        return state.get() != ACTIVE || System.nanoTime() - deadlineNanos >= 0;
+    }
+
+    public boolean isCancelled() {
+        return state.get() == CANCELLED;
+    }
+
+    /**
+     * Кількість задач, перерваних через завершення терміну або скасування.
+     */
+    public long getInterruptedCount() {
+        return interrupted.sum();
+    }
+
+    /**
+     * Виконує work у executor під контролем терміну. Після терміну потік задачі переривається,
+     * а future завершується з TimeoutException. Скасування самого future теж перериває задачу.
+     */
+    public <T> CompletableFuture<T> supplyAsync(Callable<T> work, Executor executor) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        FutureTask<Void> task = new FutureTask<>(() -> {
+            try {
+                future.complete(work.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }, null);
+        Tracked entry = new Tracked(future, task);
+        if (!track(entry)) return future;
+        executor.execute(task);
+        return future;
+    }
+
+    /**
+     * Обмежує вже запущений future цим терміном (без переривання потоку, що його виконує).
+     */
+    public <T> CompletableFuture<T> bound(CompletableFuture<T> future) {
+        CompletableFuture<T> bounded = new CompletableFuture<>();
+        future.whenComplete((value, error) -> {
+            if (error != null) bounded.completeExceptionally(error);
+            else bounded.complete(value);
+        });
+        track(new Tracked(bounded, null));
+        return bounded;
+    }
+
+    /**
+     * Для збирання часткових результатів: значення етапу або Optional.empty(), якщо він не встиг чи завершився з помилкою.
+     */
+    public static <T> CompletableFuture<Optional<T>> optional(CompletableFuture<T> future) {
+        return future.handle((value, error) -> error == null ? Optional.ofNullable(value) : Optional.empty());
+    }
+
+    /**
+     * Викликаючий код більше не чекає результату: переривається вся відстежувана робота цього і дочірніх термінів.
+     */
+    public void cancel() {
+        if (state.compareAndSet(ACTIVE, CANCELLED)) {
+            abortAll(new CancellationException("Deadline скасовано"));
+            release();
+        }
+    }
+
+    /**
+     * Термін більше не потрібен: незавершена робота скасовується (як cancel()), таймер знімається з черги,
+     * а сам термін - з батьківського. Для вже закінченого терміну нічого не робить.
+     */
+    @Override
+    public void close() {
+        cancel();
+    }
+
+    private void expire() {
+        if (state.compareAndSet(ACTIVE, EXPIRED)) {
+            abortAll(new TimeoutException("Час вичерпано"));
+            release();
+        }
+    }
+
+    private void release() {
+        ScheduledFuture<?> scheduled = timer;
+        if (scheduled != null) scheduled.cancel(false);
+        if (parent != null) parent.children.remove(this);
+    }
+
+    private void abortAll(Exception reason) {
+        for (Tracked entry : tracked) {
+            entry.abort(reason);
+        }
+        tracked.clear();
+        // Дочірні при цьому видаляють себе з children (release()) - ітератор ConcurrentHashMap це допускає
+        for (Deadline child : children) {
+            if (reason instanceof CancellationException) child.cancel();
+            else child.expire();
+        }
+    }
+
+    // false - термін уже минув, future завершено одразу
+    private boolean track(Tracked entry) {
+        tracked.add(entry);
+        entry.future.whenComplete((value, error) -> {
+            tracked.remove(entry);
+            if (entry.future.isCancelled() && entry.task != null) {
+                entry.task.cancel(true);
+            }
+        });
+        int current = state.get();
+        if (current != ACTIVE) {
+            entry.abort(current == CANCELLED ? new CancellationException("Deadline скасовано") : new TimeoutException("Час вичерпано"));
+            return false;
+        }
+        return true;
+    }
+
+    private class Tracked {
+        final CompletableFuture<?> future;
+        final FutureTask<Void> task; // null для bound()
+
+        Tracked(CompletableFuture<?> future, FutureTask<Void> task) {
+            this.future = future;
+            this.task = task;
+        }
+
+        void abort(Exception reason) {
+            if (future.completeExceptionally(reason) && task != null && task.cancel(true)) {
+                interrupted.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,311 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Реєстр метрик замість printf одного nanoTime: лічильники, гістограми затримок (LatencyHistogram) за назвою етапу
+ * і показники виконавців (черга, активні потоки). Запис без блокувань: після першого звернення до назви -
+ * лише ConcurrentHashMap.get і атомарні інкременти.
+ *
+ * Знімок пишеться у файл у форматі JSON (розширення .json) або у текстовому форматі Prometheus (будь-яке інше);
+ * exportTo() переписує файл періодично, тож показники черг видно під час роботи, а не лише після зупинки пулів.
+ */
+public class Metrics {
+
+    private static final Metrics GLOBAL = new Metrics();
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+    private final long startNanos = System.nanoTime();
+    private final ConcurrentHashMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LatencyHistogram> timers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ExecutorGauge> executors = new ConcurrentHashMap<>();
+
+    /**
+     * Спільний реєстр процесу - для статичних допоміжних методів, куди незручно передавати екземпляр.
+     */
+    public static Metrics global() {
+        return GLOBAL;
+    }
+
+    public LongAdder counter(String name) {
+        LongAdder counter = counters.get(name);
+        return counter != null ? counter : counters.computeIfAbsent(name, k -> new LongAdder());
+    }
+
+    public LatencyHistogram timer(String name) {
+        LatencyHistogram timer = timers.get(name);
+        return timer != null ? timer : timers.computeIfAbsent(name, k -> new LatencyHistogram());
+    }
+
+    public void record(String name, long nanos) {
+        timer(name).record(nanos);
+    }
+
+    /**
+     * Виконує work і записує його тривалість (і у разі винятку) у timer(name).
+     */
+    public <T> T time(String name, Supplier<T> work) {
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            record(name, System.nanoTime() - start);
+        }
+    }
+
+    public void time(String name, Runnable work) {
+        long start = System.nanoTime();
+        try {
+            work.run();
+        } finally {
+            record(name, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Показники глибини черги і активних потоків для ThreadPoolExecutor і ForkJoinPool; для інших виконавців
+     * (наприклад, віртуальних потоків) записується лише назва.
+     */
+    public void registerExecutor(String name, Executor executor) {
+        executors.put(name, new ExecutorGauge(executor));
+    }
+
+    /**
+     * Знімає поточні показники виконавців; найбільша глибина черги запам'ятовується між знімками.
+     */
+    public void sampleExecutors() {
+        for (ExecutorGauge gauge : executors.values()) {
+            gauge.sample();
+        }
+    }
+
+    public String toJson() {
+        sampleExecutors();
+        double uptime = uptimeSeconds();
+        StringBuilder out = new StringBuilder();
+        out.append("{\n  \"uptime_s\": ").append(format(uptime)).append(",\n  \"counters\": {");
+        String separator = "\n";
+        for (Map.Entry<String, LongAdder> e : new TreeMap<>(counters).entrySet()) {
+            out.append(separator).append("    ").append(quote(e.getKey())).append(": ").append(e.getValue().sum());
+            separator = ",\n";
+        }
+        out.append(counters.isEmpty() ? "},\n" : "\n  },\n").append("  \"timers\": {");
+        separator = "\n";
+        for (Map.Entry<String, LatencyHistogram> e : new TreeMap<>(timers).entrySet()) {
+            LatencyHistogram h = e.getValue();
+            out.append(separator).append("    ").append(quote(e.getKey())).append(": {")
+                    .append("\"count\": ").append(h.getCount())
+                    .append(", \"throughput_per_s\": ").append(format(uptime > 0 ? h.getCount() / uptime : 0))
+                    .append(", \"mean_ms\": ").append(format(h.getMeanNanos() / 1e6))
+                    .append(", \"p50_ms\": ").append(format(h.percentile(0.50) / 1e6))
+                    .append(", \"p99_ms\": ").append(format(h.percentile(0.99) / 1e6))
+                    .append(", \"max_ms\": ").append(format(h.getMaxNanos() / 1e6)).append('}');
+            separator = ",\n";
+        }
+        out.append(timers.isEmpty() ? "},\n" : "\n  },\n").append("  \"executors\": {");
+        separator = "\n";
+        for (Map.Entry<String, ExecutorGauge> e : new TreeMap<>(executors).entrySet()) {
+            ExecutorGauge g = e.getValue();
+            out.append(separator).append("    ").append(quote(e.getKey())).append(": {")
+                    .append("\"type\": ").append(quote(g.type))
+                    .append(", \"queue_depth\": ").append(g.queueDepth)
+                    .append(", \"max_queue_depth\": ").append(g.maxQueueDepth.get())
+                    .append(", \"active_threads\": ").append(g.activeThreads)
+                    .append(", \"pool_size\": ").append(g.poolSize)
+                    .append(g.completedTasks >= 0 ? ", \"completed_tasks\": " + g.completedTasks : "")
+                    .append(g.steals >= 0 ? ", \"steals\": " + g.steals : "").append('}');
+            separator = ",\n";
+        }
+        out.append(executors.isEmpty() ? "}\n" : "\n  }\n").append("}\n");
+        return out.toString();
+    }
+
+    public String toPrometheus() {
+        sampleExecutors();
+        StringBuilder out = new StringBuilder();
+        out.append("# TYPE lab_uptime_seconds gauge\nlab_uptime_seconds ").append(format(uptimeSeconds())).append('\n');
+
+        out.append("# TYPE lab_events_total counter\n");
+        for (Map.Entry<String, LongAdder> e : new TreeMap<>(counters).entrySet()) {
+            out.append("lab_events_total{name=").append(quote(e.getKey())).append("} ").append(e.getValue().sum()).append('\n');
+        }
+
+        out.append("# TYPE lab_stage_latency_seconds summary\n");
+        for (Map.Entry<String, LatencyHistogram> e : new TreeMap<>(timers).entrySet()) {
+            String stage = quote(e.getKey());
+            LatencyHistogram h = e.getValue();
+            for (double q : QUANTILES) {
+                out.append("lab_stage_latency_seconds{stage=").append(stage).append(",quantile=\"").append(q).append("\"} ")
+                        .append(seconds(h.percentile(q))).append('\n');
+            }
+            out.append("lab_stage_latency_seconds_sum{stage=").append(stage).append("} ")
+                    .append(seconds(h.getMeanNanos() * h.getCount())).append('\n');
+            out.append("lab_stage_latency_seconds_count{stage=").append(stage).append("} ").append(h.getCount()).append('\n');
+        }
+        out.append("# TYPE lab_stage_latency_max_seconds gauge\n");
+        for (Map.Entry<String, LatencyHistogram> e : new TreeMap<>(timers).entrySet()) {
+            out.append("lab_stage_latency_max_seconds{stage=").append(quote(e.getKey())).append("} ")
+                    .append(seconds(e.getValue().getMaxNanos())).append('\n');
+        }
+
+        Map<String, ExecutorGauge> sorted = new TreeMap<>(executors);
+        appendExecutorGauge(out, "lab_executor_queue_depth", "gauge", sorted, g -> g.queueDepth);
+        appendExecutorGauge(out, "lab_executor_max_queue_depth", "gauge", sorted, g -> g.maxQueueDepth.get());
+        appendExecutorGauge(out, "lab_executor_active_threads", "gauge", sorted, g -> g.activeThreads);
+        appendExecutorGauge(out, "lab_executor_pool_size", "gauge", sorted, g -> g.poolSize);
+        appendExecutorGauge(out, "lab_executor_completed_tasks_total", "counter", sorted, g -> g.completedTasks);
+        appendExecutorGauge(out, "lab_executor_steals_total", "counter", sorted, g -> g.steals);
+        return out.toString();
+    }
+
+    /**
+     * Записує знімок у file: JSON для *.json, інакше формат Prometheus. Запис через тимчасовий файл,
+     * тож читач ніколи не бачить половину знімка.
+     */
+    public void writeTo(Path file) throws IOException {
+        String content = file.toString().endsWith(".json") ? toJson() : toPrometheus();
+        Path absolute = file.toAbsolutePath();
+        Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, content.getBytes(StandardCharsets.UTF_8));
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Переписує file кожні periodMillis мс і ще раз під час close().
+     */
+    public Exporter exportTo(Path file, long periodMillis) {
+        return new Exporter(file, periodMillis);
+    }
+
+    private double uptimeSeconds() {
+        return (System.nanoTime() - startNanos) / 1e9;
+    }
+
+    private interface GaugeValue {
+        long get(ExecutorGauge gauge);
+    }
+
+    private static void appendExecutorGauge(StringBuilder out, String metric, String type,
+                                            Map<String, ExecutorGauge> gauges, GaugeValue value) {
+        out.append("# TYPE ").append(metric).append(' ').append(type).append('\n');
+        for (Map.Entry<String, ExecutorGauge> e : gauges.entrySet()) {
+            long v = value.get(e.getValue());
+            // Від'ємне значення - показник не має сенсу для цього типу виконавця
+            if (e.getValue().supported && v >= 0) {
+                out.append(metric).append("{executor=").append(quote(e.getKey())).append("} ").append(v).append('\n');
+            }
+        }
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.6f", value);
+    }
+
+    private static String seconds(double nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+
+    // Екранування для рядків JSON і значень міток Prometheus (однакові правила для \, " і переводу рядка)
+    private static String quote(String value) {
+        StringBuilder out = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') out.append('\\').append(c);
+            else if (c == '\n') out.append("\\n");
+            else if (c < 0x20) out.append(String.format("\\u%04x", (int) c));
+            else out.append(c);
+        }
+        return out.append('"').toString();
+    }
+
+    private static final class ExecutorGauge {
+        final Executor executor;
+        final String type;
+        final boolean supported;
+        final AtomicLong maxQueueDepth = new AtomicLong();
+        // Останній знімок; читається і пишеться під час експорту
+        volatile long queueDepth;
+        volatile long activeThreads;
+        volatile long poolSize;
+        volatile long completedTasks = -1; // лише ThreadPoolExecutor
+        volatile long steals = -1; // лише ForkJoinPool
+
+        ExecutorGauge(Executor executor) {
+            this.executor = executor;
+            this.type = executor.getClass().getSimpleName();
+            this.supported = executor instanceof ThreadPoolExecutor || executor instanceof ForkJoinPool;
+        }
+
+        void sample() {
+            if (executor instanceof ThreadPoolExecutor) {
+                ThreadPoolExecutor pool = (ThreadPoolExecutor) executor;
+                queueDepth = pool.getQueue().size();
+                activeThreads = pool.getActiveCount();
+                poolSize = pool.getPoolSize();
+                completedTasks = pool.getCompletedTaskCount();
+            } else if (executor instanceof ForkJoinPool) {
+                ForkJoinPool pool = (ForkJoinPool) executor;
+                queueDepth = pool.getQueuedSubmissionCount() + pool.getQueuedTaskCount();
+                activeThreads = pool.getActiveThreadCount();
+                poolSize = pool.getPoolSize();
+                steals = pool.getStealCount(); // завершені задачі ForkJoinPool не рахує
+            }
+            maxQueueDepth.accumulateAndGet(queueDepth, Math::max);
+        }
+    }
+
+    /**
+     * Періодичний запис знімка у файл фоновим daemon-потоком.
+     */
+    public final class Exporter implements AutoCloseable {
+        private final Path file;
+        private final ScheduledExecutorService timer;
+
+        private Exporter(Path file, long periodMillis) {
+            this.file = file;
+            this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "metrics-export");
+                thread.setDaemon(true);
+                return thread;
+            });
+            // Вибірка черг частіше за запис файлу, щоб не пропустити короткі піки
+            long samplePeriod = Math.max(1, periodMillis / 10);
+            timer.scheduleAtFixedRate(Metrics.this::sampleExecutors, 0, samplePeriod, TimeUnit.MILLISECONDS);
+            timer.scheduleAtFixedRate(this::write, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+        }
+
+        private void write() {
+            try {
+                writeTo(file);
+            } catch (IOException e) {
+                System.err.println("Не вдалося записати метрики у " + file + ": " + e.getMessage());
+            }
+        }
+
+        @Override
+        public void close() {
+            timer.shutdownNow();
+            write();
+        }
+    }
+}
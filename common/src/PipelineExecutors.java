@@ -0,0 +1,116 @@
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Пара виконавців для ланцюжків CompletableFuture:
+ * blocking() - для етапів, що блокуються (читання файлів, "віддалені" виклики зі sleep),
+ * cpu() - для обчислювальних етапів.
+ *
+ * Якщо блокуючі етапи виконуються у commonPool (як у supplyAsync без виконавця), кожен sleep
+ * займає один з небагатьох потоків пулу і паралельні гілки фактично виконуються послідовно.
+ * За замовчуванням блокуючі етапи виконуються у віртуальних потоках (по потоку на задачу, JDK 21+);
+ * на старіших JDK - у пулі звичайних потоків з обмеженням DEFAULT_MAX_PLATFORM_THREADS.
+ */
+public class PipelineExecutors implements AutoCloseable {
+
+    public static final int DEFAULT_MAX_PLATFORM_THREADS = 4096;
+
+    private final Executor blocking;
+    private final Executor cpu;
+    private final boolean virtual;
+    private final ExecutorService owned;
+
+    private PipelineExecutors(Executor blocking, Executor cpu, boolean virtual, ExecutorService owned) {
+        this.blocking = blocking;
+        this.cpu = cpu;
+        this.virtual = virtual;
+        this.owned = owned;
+    }
+
+    /**
+     * Віртуальні потоки (або обмежений пул звичайних потоків) для блокуючих етапів, commonPool - для обчислень.
+     */
+    public static PipelineExecutors createDefault() {
+        ExecutorService virtualExecutor = newVirtualThreadExecutor();
+        if (virtualExecutor != null) {
+            return new PipelineExecutors(virtualExecutor, ForkJoinPool.commonPool(), true, virtualExecutor);
+        }
+        ExecutorService platform = newPlatformThreadExecutor(DEFAULT_MAX_PLATFORM_THREADS);
+        return new PipelineExecutors(platform, ForkJoinPool.commonPool(), false, platform);
+    }
+
+    /**
+     * Усі етапи у commonPool - поведінка supplyAsync/thenApplyAsync без явного виконавця.
+     */
+    public static PipelineExecutors commonPool() {
+        return new PipelineExecutors(ForkJoinPool.commonPool(), ForkJoinPool.commonPool(), false, null);
+    }
+
+    /**
+     * Довільні виконавці; їх життєвим циклом керує викликаючий код.
+     */
+    public static PipelineExecutors of(Executor blocking, Executor cpu) {
+        return new PipelineExecutors(blocking, cpu, false, null);
+    }
+
+    public Executor blocking() {
+        return blocking;
+    }
+
+    public Executor cpu() {
+        return cpu;
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    public String describe() {
+        if (owned == null) {
+            return blocking == ForkJoinPool.commonPool() ? "commonPool" : "зовнішні виконавці";
+        }
+        return (virtual ? "віртуальні потоки" : "пул звичайних потоків") + " + commonPool для обчислень";
+    }
+
+    /**
+     * Закриває лише створений цим класом виконавець блокуючих етапів; commonPool не зупиняється.
+     */
+    @Override
+    public void close() {
+        if (owned != null) {
+            owned.shutdown();
+        }
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() з'явився лише у JDK 21, тому викликається через reflection
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    // Задачі понад maxThreads чекають у черзі; простоюючі потоки завершуються
+    private static ExecutorService newPlatformThreadExecutor(int maxThreads) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            // Невеликий стек: потоки лише чекають на sleep/I/O
+            Thread thread = new Thread(null, runnable, "blocking-" + counter.incrementAndGet(), 256 * 1024);
+            thread.setDaemon(true);
+            return thread;
+        };
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads, 10, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), factory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
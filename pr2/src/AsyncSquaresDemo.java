@@ -1,3 +1,4 @@
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.*;
 
@@ -16,6 +17,7 @@ class SquareCalculator implements Callable<Double[]> {
 
     @Override
     public Double[] call() throws Exception {
+        long start = System.nanoTime();
         // Емуляція невеликої затримки для наочності асинхронності
         Thread.sleep(200);
 
@@ -26,6 +28,7 @@ class SquareCalculator implements Callable<Double[]> {
         }
 
         System.out.println("Потік [" + Thread.currentThread().getName() + "] обробив частину #" + chunkId);
+        Metrics.global().record("squares.chunk", System.nanoTime() - start);
         return results;
     }
 }
@@ -36,6 +39,39 @@ public class AsyncSquaresDemo {
         Scanner scanner = new Scanner(System.in);
         Random random = new Random();
 
+        // Режим роботи задається аргументами командного рядка:
+        //   --primitive   - конвеєр на double[] без boxing (для великих масивів)
+        //   --size=N      - розмір масиву для примітивного режиму (за замовчуванням 40-60)
+        //   --dedup       - видалення дублікатів через ConcurrentDoubleHashSet прямо у задачах
+        //   --streaming   - збір результатів у порядку завершення (CompletionService)
+        //   --window=N    - максимальна кількість частин "у польоті" для --streaming
+        //   --runs=N      - кількість повторних запусків примітивного режиму (план уточнюється між ними)
+        //   --metrics=ФАЙЛ - час частин і запусків та стан пулу у ФАЙЛ (JSON для *.json, інакше Prometheus)
+        boolean primitiveMode = false;
+        boolean dedup = false;
+        boolean streamingMode = false;
+        int requestedSize = -1;
+        int window = 4;
+        int runs = 1;
+        String metricsFile = null;
+        for (String arg : args) {
+            if (arg.equals("--primitive")) {
+                primitiveMode = true;
+            } else if (arg.equals("--dedup")) {
+                dedup = true;
+            } else if (arg.equals("--streaming")) {
+                streamingMode = true;
+            } else if (arg.startsWith("--size=")) {
+                requestedSize = Integer.parseInt(arg.substring("--size=".length()));
+            } else if (arg.startsWith("--window=")) {
+                window = Integer.parseInt(arg.substring("--window=".length()));
+            } else if (arg.startsWith("--runs=")) {
+                runs = Math.max(1, Integer.parseInt(arg.substring("--runs=".length())));
+            } else if (arg.startsWith("--metrics=")) {
+                metricsFile = arg.substring("--metrics=".length());
+            }
+        }
+
         // 1. Ввід діапазону користувачем (за варіантом 0,5 - 99,5)
         System.out.println("Введіть мінімальне значення діапазону (наприклад, 0,5): ");
         double minRange = scanner.nextDouble();
@@ -43,89 +79,243 @@ public class AsyncSquaresDemo {
         System.out.println("Введіть максимальне значення діапазону (наприклад, 99,5): ");
         double maxRange = scanner.nextDouble();
 
-        // Фіксація часу початку роботи
-        long startTime = System.nanoTime();
+        Metrics.Exporter exporter = metricsFile == null ? null : Metrics.global().exportTo(Paths.get(metricsFile), 1000);
+        try {
+            if (primitiveMode) {
+                int size = requestedSize > 0 ? requestedSize : 40 + random.nextInt(21);
+                runPrimitiveMode(minRange, maxRange, size, dedup, runs);
+                return;
+            }
 
-        // 2. Генерація масиву (40-60 елементів)
-        int arraySize = 40 + random.nextInt(21); // генерує від 40 до 60
-        Double[] mainArray = new Double[arraySize];
+            // Фіксація часу початку роботи
+            long startTime = System.nanoTime();
 
-        System.out.println("--- Генерируємо масив з " + arraySize + " елементів ---");
-        for (int i = 0; i < arraySize; i++) {
-            double val = minRange + (maxRange - minRange) * random.nextDouble();
-            mainArray[i] = Math.round(val * 100.0) / 100.0; // Округлення до 2 знаків для краси
-        }
-        System.out.println("Вхідні дані: " + Arrays.toString(mainArray));
-        System.out.println("----------------------------------------------------");
+            // 2. Генерація масиву (40-60 елементів)
+            int arraySize = 40 + random.nextInt(21); // генерує від 40 до 60
+            Double[] mainArray = new Double[arraySize];
 
-        // 3. Підготовка ExecutorService та колекції CopyOnWriteArraySet
-        // Використовуємо пул потоків. Кількість потоків залежить від доступних ядер процесора
-        int cores = Runtime.getRuntime().availableProcessors();
-        ExecutorService executor = Executors.newFixedThreadPool(cores > 1 ? cores : 2);
+            System.out.println("--- Генерируємо масив з " + arraySize + " елементів ---");
+            for (int i = 0; i < arraySize; i++) {
+                double val = minRange + (maxRange - minRange) * random.nextDouble();
+                mainArray[i] = Math.round(val * 100.0) / 100.0; // Округлення до 2 знаків для краси
+            }
+            System.out.println("Вхідні дані: " + Arrays.toString(mainArray));
+            System.out.println("----------------------------------------------------");
 
-        // Потокобезпечна колекція згідно варіанту
-        CopyOnWriteArraySet<Double> resultSet = new CopyOnWriteArraySet<>();
-        List<Future<Double[]>> futureList = new ArrayList<>();
+            // 3. Підготовка ExecutorService та колекції CopyOnWriteArraySet
+            // Використовуємо пул потоків. Кількість потоків залежить від доступних ядер процесора
+            int cores = Runtime.getRuntime().availableProcessors();
+            int poolSize = cores > 1 ? cores : 2;
+            ExecutorService executor = Executors.newFixedThreadPool(poolSize);
+            Metrics.global().registerExecutor("squares", executor);
 
-        // 4. Розбиття на частини (chunks) та запуск задач
-        int chunkSize = 10; // Розмір однієї частини
-        int chunkCount = 0;
+            // Потокобезпечна колекція згідно варіанту
+            CopyOnWriteArraySet<Double> resultSet = new CopyOnWriteArraySet<>();
+            List<Future<Double[]>> futureList = new ArrayList<>();
 
-        for (int i = 0; i < mainArray.length; i += chunkSize) {
-            int end = Math.min(mainArray.length, i + chunkSize);
-            // Копіюємо частину масиву
-            Double[] chunk = Arrays.copyOfRange(mainArray, i, end);
+            // Кожна SquareCalculator має фіксовану затримку 200 мс незалежно від розміру,
+            // тому вигідно мати рівно одну частину на потік (tasksPerThread = 1, без мінімальної роботи)
+            ChunkPlanner.Plan plan = new ChunkPlanner(poolSize, 1, 0).plan(mainArray.length);
+            System.out.println(plan);
+            int chunkSize = plan.getChunkSize(); // Розмір однієї частини
 
-            // Створюємо Callable та передаємо на виконання
-            Callable<Double[]> task = new SquareCalculator(chunk, ++chunkCount);
-            Future<Double[]> future = executor.submit(task);
-            futureList.add(future);
-        }
+            if (streamingMode) {
+                // 4-5. Потоковий режим: частини створюються ліниво, результати зливаються у порядку завершення
+                collectStreaming(mainArray, executor, chunkSize, window, resultSet);
+            } else {
+                // 4. Розбиття на частини (chunks) та запуск задач
+                int chunkCount = 0;
 
-        System.out.println("Задачі відправлені на виконання...");
+                for (int i = 0; i < mainArray.length; i += chunkSize) {
+                    int end = Math.min(mainArray.length, i + chunkSize);
+                    // Копіюємо частину масиву
+                    Double[] chunk = Arrays.copyOfRange(mainArray, i, end);
 
-        // 5. Збір результатів через Future
-        for (int i = 0; i < futureList.size(); i++) {
-            Future<Double[]> future = futureList.get(i);
+                    // Створюємо Callable та передаємо на виконання
+                    Callable<Double[]> task = new SquareCalculator(chunk, ++chunkCount);
+                    Future<Double[]> future = executor.submit(task);
+                    futureList.add(future);
+                }
 
-            try {
-                // Демонстрація методів isDone() та isCancelled()
-                // Оскільки ми викликаємо .get(), потік заблокується, доки задача не виконається,
-                // тому isDone буде true одразу після get(), але перевіримо логіку:
+                System.out.println("Задачі відправлені на виконання...");
 
-                if (!future.isCancelled()) {
-                    // get() блокує виконання до отримання результату
-                    Double[] resultChunk = future.get();
+                // 5. Збір результатів через Future
+                for (int i = 0; i < futureList.size(); i++) {
+                    Future<Double[]> future = futureList.get(i);
 
-                    // Перевірка isDone()
-                    if (future.isDone()) {
-                        // Додаємо результати у CopyOnWriteArraySet
-                        resultSet.addAll(Arrays.asList(resultChunk));
+                    try {
+                        // Демонстрація методів isDone() та isCancelled()
+                        // Оскільки ми викликаємо .get(), потік заблокується, доки задача не виконається,
+                        // тому isDone буде true одразу після get(), але перевіримо логіку:
+
+                        if (!future.isCancelled()) {
+                            // get() блокує виконання до отримання результату
+                            Double[] resultChunk = future.get();
+
+                            // Перевірка isDone()
+                            if (future.isDone()) {
+                                // Додаємо результати у CopyOnWriteArraySet
+                                resultSet.addAll(Arrays.asList(resultChunk));
+                            }
+                        } else {
+                            System.out.println("Задача #" + (i + 1) + " була скасована.");
+                        }
+
+                    } catch (InterruptedException | ExecutionException e) {
+                        e.printStackTrace();
                     }
-                } else {
-                    System.out.println("Задача #" + (i + 1) + " була скасована.");
                 }
+            }
+
+            // Завершуємо роботу екзек'ютора
+            executor.shutdown();
+
+            // 6. Вивід результатів
+            System.out.println("----------------------------------------------------");
+            System.out.println("Результат (Квадрати чисел у CopyOnWriteArraySet):");
+            // Set не гарантує порядок вставки, але гарантує унікальність
+            System.out.println(resultSet);
+            System.out.println("Кількість елементів у результаті: " + resultSet.size());
 
-            } catch (InterruptedException | ExecutionException e) {
-                e.printStackTrace();
+            // 7. Вивід часу роботи
+            long endTime = System.nanoTime();
+            double durationInMs = (endTime - startTime) / 1_000_000.0;
+            Metrics.global().record("squares.total", endTime - startTime);
+
+            System.out.println("----------------------------------------------------");
+            System.out.printf("Час роботи програми: %.2f мс%n", durationInMs);
+        } finally {
+            if (exporter != null) {
+                exporter.close();
             }
         }
+    }
+
+    // --------------------------------------------------------
+    // ПОТОКОВИЙ ЗБІР РЕЗУЛЬТАТІВ
+    // --------------------------------------------------------
+    private static void collectStreaming(Double[] mainArray, ExecutorService executor, int chunkSize, int window,
+                                         Set<Double> resultSet) {
+        // Частини копіюються лише тоді, коли у вікні звільняється місце
+        Iterator<Callable<Double[]>> tasks = new Iterator<>() {
+            private int offset = 0;
+            private int chunkCount = 0;
 
-        // Завершуємо роботу екзек'ютора
-        executor.shutdown();
+            @Override
+            public boolean hasNext() {
+                return offset < mainArray.length;
+            }
+
+            @Override
+            public Callable<Double[]> next() {
+                int end = Math.min(mainArray.length, offset + chunkSize);
+                Double[] chunk = Arrays.copyOfRange(mainArray, offset, end);
+                offset = end;
+                return new SquareCalculator(chunk, ++chunkCount);
+            }
+        };
 
-        // 6. Вивід результатів
+        StreamingChunkCollector<Double[]> collector = new StreamingChunkCollector<>(executor, window);
+        System.out.println("Задачі відправляються на виконання (вікно: " + window + ")...");
+        try {
+            StreamingChunkCollector.Stats stats = collector.collect(tasks,
+                    resultChunk -> resultSet.addAll(Arrays.asList(resultChunk)));
+            System.out.println(stats);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // --------------------------------------------------------
+    // ПРИМІТИВНИЙ РЕЖИМ (double[] без boxing)
+    // --------------------------------------------------------
+    private static void runPrimitiveMode(double minRange, double maxRange, int arraySize, boolean dedup, int runs) {
+        long startTime = System.nanoTime();
+
+        System.out.println("--- Генеруємо масив з " + arraySize + " елементів (примітивний режим) ---");
+        double[] mainArray = new double[arraySize];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < arraySize; i++) {
+            double val = minRange + (maxRange - minRange) * random.nextDouble();
+            mainArray[i] = Math.round(val * 100.0) / 100.0;
+        }
+        if (arraySize <= 100) {
+            System.out.println("Вхідні дані: " + Arrays.toString(mainArray));
+        }
+        System.out.println("----------------------------------------------------");
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        int poolSize = cores > 1 ? cores : 2;
+        ExecutorService executor = Executors.newFixedThreadPool(poolSize);
+        // Розмір частин обирає планувальник; між запусками він уточнює оцінку вартості елемента
+        Metrics.global().registerExecutor("squares", executor);
+        ChunkPlanner planner = new ChunkPlanner(poolSize, 4, 50_000);
+
+        double[] squares = null;
+        ConcurrentDoubleHashSet unique = null;
+        try {
+            for (int run = 1; run <= runs; run++) {
+                ChunkPlanner.Plan plan = planner.plan(arraySize);
+                // При --dedup задачі одразу вставляють квадрати у спільну множину
+                unique = dedup ? new ConcurrentDoubleHashSet(arraySize, poolSize * 16) : null;
+
+                long computeStart = System.nanoTime();
+                squares = computeSquares(mainArray, executor, plan.getChunkSize(), unique);
+                long computeTime = System.nanoTime() - computeStart;
+                planner.recordRun(plan, computeTime);
+                Metrics.global().record("squares.compute", computeTime);
+
+                System.out.println("[Запуск " + run + "] " + plan);
+                System.out.printf("[Запуск %d] Обчислення квадратів: %.2f мс%n", run, computeTime / 1_000_000.0);
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            e.printStackTrace();
+            return;
+        } finally {
+            executor.shutdown();
+        }
         System.out.println("----------------------------------------------------");
-        System.out.println("Результат (Квадрати чисел у CopyOnWriteArraySet):");
-        // Set не гарантує порядок вставки, але гарантує унікальність
-        System.out.println(resultSet);
-        System.out.println("Кількість елементів у результаті: " + resultSet.size());
 
-        // 7. Вивід часу роботи
-        long endTime = System.nanoTime();
-        double durationInMs = (endTime - startTime) / 1_000_000.0;
+        if (unique != null) {
+            double[] uniqueValues = unique.toArray();
+            if (uniqueValues.length <= 100) {
+                System.out.println("Результат (унікальні квадрати): " + Arrays.toString(uniqueValues));
+            }
+            System.out.println("Кількість унікальних елементів: " + uniqueValues.length);
+        } else {
+            if (squares.length <= 100) {
+                System.out.println("Результат (квадрати чисел): " + Arrays.toString(squares));
+            }
+            System.out.println("Кількість елементів у результаті: " + squares.length);
+        }
 
         System.out.println("----------------------------------------------------");
-        System.out.printf("Час роботи програми: %.2f мс%n", durationInMs);
+        long totalTime = System.nanoTime() - startTime;
+        Metrics.global().record("squares.total", totalTime);
+        System.out.printf("Час роботи програми: %.2f мс%n", totalTime / 1_000_000.0);
+    }
+
+    /**
+     * Підносить до квадрату всі елементи input паралельно.
+     * Кожна задача пише у спільний вихідний масив за своїм зміщенням, тому
+     * ні копій частин, ні злиття результатів не потрібно.
+     * Якщо unique != null, задачі також додають квадрати у цю множину.
+     */
+    static double[] computeSquares(double[] input, ExecutorService executor, int chunkSize,
+                                   ConcurrentDoubleHashSet unique)
+            throws InterruptedException, ExecutionException {
+        double[] output = new double[input.length];
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < input.length; i += chunkSize) {
+            int end = Math.min(input.length, i + chunkSize);
+            futures.add(executor.submit(new PrimitiveSquareCalculator(input, output, i, end, unique)));
+        }
+        // get() також гарантує happens-before між записами у output та їх читанням тут
+        for (Future<Integer> future : futures) {
+            future.get();
+        }
+        return output;
     }
 }
\ No newline at end of file
@@ -0,0 +1,100 @@
+/**
+ * Планувальник розбиття масиву на частини замість фіксованого chunkSize = 10.
+ * Кількість частин обирається з двох умов:
+ *  - балансування: близько tasksPerThread частин на кожен потік, щоб ядра не простоювали;
+ *  - накладні витрати: кожна частина має містити щонайменше minTaskNanos роботи,
+ *    інакше витрати на створення Future та постановку в чергу переважають корисну роботу.
+ * Вартість обробки одного елемента оцінюється з вимірювань (recordRun) ковзним середнім,
+ * тому план уточнюється між запусками.
+ */
+class ChunkPlanner {
+    // Початкова оцінка для x * x з записом у масив, до першого вимірювання
+    private static final double DEFAULT_NANOS_PER_ELEMENT = 1.0;
+    // Вага нового вимірювання у ковзному середньому
+    private static final double SMOOTHING = 0.5;
+
+    private final int parallelism;
+    private final int tasksPerThread;
+    private final long minTaskNanos;
+    private volatile double nanosPerElement;
+
+    public ChunkPlanner() {
+        this(Runtime.getRuntime().availableProcessors(), 4, 50_000);
+    }
+
+    public ChunkPlanner(int parallelism, int tasksPerThread, long minTaskNanos) {
+        if (parallelism < 1 || tasksPerThread < 1 || minTaskNanos < 0) {
+            throw new IllegalArgumentException("Некоректні параметри планувальника");
+        }
+        this.parallelism = parallelism;
+        this.tasksPerThread = tasksPerThread;
+        this.minTaskNanos = minTaskNanos;
+        this.nanosPerElement = DEFAULT_NANOS_PER_ELEMENT;
+    }
+
+    /**
+     * Будує план для масиву довжини length з урахуванням поточної оцінки вартості елемента.
+     */
+    public Plan plan(int length) {
+        if (length <= 0) {
+            return new Plan(length, 0, 0, parallelism, nanosPerElement);
+        }
+        double costPerElement = nanosPerElement;
+        long byBalance = (long) parallelism * tasksPerThread;
+        long byCost = minTaskNanos == 0 ? length : (long) (length * costPerElement / minTaskNanos);
+        long chunkCount = Math.max(1, Math.min(Math.min(byBalance, byCost), length));
+        int chunkSize = (int) ((length + chunkCount - 1) / chunkCount);
+        // Після округлення розміру частин їх кількість могла зменшитись
+        int actualCount = (length + chunkSize - 1) / chunkSize;
+        return new Plan(length, actualCount, chunkSize, parallelism, costPerElement);
+    }
+
+    /**
+     * Оновлює оцінку вартості елемента за фактичним часом виконання плану (wall-clock).
+     * Оскільки частини виконуються паралельно, загальний процесорний час оцінюється як
+     * elapsed * кількість одночасно працюючих потоків.
+     */
+    public void recordRun(Plan plan, long elapsedNanos) {
+        if (plan.length <= 0 || elapsedNanos <= 0) return;
+        int busyThreads = Math.min(parallelism, plan.chunkCount);
+        double measured = (double) elapsedNanos * busyThreads / plan.length;
+        nanosPerElement = SMOOTHING * measured + (1 - SMOOTHING) * nanosPerElement;
+    }
+
+    public double getNanosPerElement() {
+        return nanosPerElement;
+    }
+
+    /**
+     * Обраний план розбиття (для логування та використання у циклі відправки задач).
+     */
+    static class Plan {
+        final int length;
+        final int chunkCount;
+        final int chunkSize;
+        final int parallelism;
+        final double nanosPerElement;
+
+        Plan(int length, int chunkCount, int chunkSize, int parallelism, double nanosPerElement) {
+            this.length = length;
+            this.chunkCount = chunkCount;
+            this.chunkSize = chunkSize;
+            this.parallelism = parallelism;
+            this.nanosPerElement = nanosPerElement;
+        }
+
+        public int getChunkCount() {
+            return chunkCount;
+        }
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("План: %d елементів -> %d частин по %d (потоків: %d, оцінка: %.2f нс/елемент)",
+                    length, chunkCount, chunkSize, parallelism, nanosPerElement);
+        }
+    }
+}
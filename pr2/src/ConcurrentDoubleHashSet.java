@@ -0,0 +1,114 @@
+import java.util.ConcurrentModificationException;
+import java.util.function.DoubleConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Потокобезпечна множина примітивних double з розбиттям на сегменти (lock striping).
+ * Кожен сегмент - це окремий DoubleHashSet під власним монітором, сегмент обирається
+ * за старшими бітами хешу. Тому вставка коштує O(1) і потоки, що пишуть у різні сегменти,
+ * не заважають один одному (на відміну від CopyOnWriteArraySet, де кожен запис - це O(n) копія).
+ */
+class ConcurrentDoubleHashSet {
+    private final DoubleHashSet[] segments;
+    private final int segmentShift;
+
+    public ConcurrentDoubleHashSet() {
+        this(1024, Runtime.getRuntime().availableProcessors() * 16);
+    }
+
+    public ConcurrentDoubleHashSet(int expectedSize, int concurrencyLevel) {
+        int segmentCount = DoubleHashSet.tableSizeFor(Math.max(concurrencyLevel, 2));
+        this.segments = new DoubleHashSet[segmentCount];
+        this.segmentShift = 32 - Integer.numberOfTrailingZeros(segmentCount);
+        int perSegment = Math.max(expectedSize / segmentCount, 16);
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new DoubleHashSet(perSegment);
+        }
+    }
+
+    public boolean add(double value) {
+        DoubleHashSet segment = segmentFor(value);
+        synchronized (segment) {
+            return segment.add(value);
+        }
+    }
+
+    /**
+     * Додає елементи values[from, to). Повертає кількість нових (раніше відсутніх) значень.
+     */
+    public int addAll(double[] values, int from, int to) {
+        int added = 0;
+        for (int i = from; i < to; i++) {
+            if (add(values[i])) added++;
+        }
+        return added;
+    }
+
+    public boolean contains(double value) {
+        DoubleHashSet segment = segmentFor(value);
+        synchronized (segment) {
+            return segment.contains(value);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (DoubleHashSet segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Паралельно копіює всі значення у новий масив.
+     * Викликати після завершення запису (наприклад, після Future.get() усіх задач):
+     * якщо сегмент змінився під час копіювання, кидається ConcurrentModificationException.
+     */
+    public double[] toArray() {
+        int[] offsets = new int[segments.length + 1];
+        for (int i = 0; i < segments.length; i++) {
+            synchronized (segments[i]) {
+                offsets[i + 1] = offsets[i] + segments[i].size();
+            }
+        }
+        double[] result = new double[offsets[segments.length]];
+        IntStream.range(0, segments.length).parallel().forEach(i -> {
+            DoubleHashSet segment = segments[i];
+            synchronized (segment) {
+                if (segment.size() != offsets[i + 1] - offsets[i]) {
+                    throw new ConcurrentModificationException("Сегмент #" + i + " змінився під час toArray()");
+                }
+                segment.copyTo(result, offsets[i]);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Паралельний обхід: сегменти обробляються в різних потоках ForkJoinPool.commonPool(),
+     * тому action має бути потокобезпечною. Під монітором сегмента його вміст лише копіюється,
+     * а action викликається вже без блокування - вона може звертатися до цієї ж множини
+     * (наприклад, add в інший сегмент) без ризику взаємного блокування сегментів.
+     * Обхід бачить знімок кожного сегмента на момент копіювання.
+     */
+    public void forEach(DoubleConsumer action) {
+        IntStream.range(0, segments.length).parallel().forEach(i -> {
+            DoubleHashSet segment = segments[i];
+            double[] snapshot;
+            synchronized (segment) {
+                snapshot = new double[segment.size()];
+                segment.copyTo(snapshot, 0);
+            }
+            for (double value : snapshot) {
+                action.accept(value);
+            }
+        });
+    }
+
+    private DoubleHashSet segmentFor(double value) {
+        // DoubleHashSet використовує молодші біти того ж хешу, тому тут беремо старші
+        return segments[DoubleHashSet.mix(Double.doubleToLongBits(value)) >>> segmentShift];
+    }
+}
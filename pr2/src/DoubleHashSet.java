@@ -0,0 +1,138 @@
+import java.util.Arrays;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Множина примітивних double на основі відкритої адресації (linear probing).
+ * Значення зберігаються як біти (Double.doubleToLongBits), тому немає boxing
+ * і рівність збігається з Double.equals (NaN == NaN, 0.0 != -0.0).
+ * Клас НЕ потокобезпечний.
+ */
+class DoubleHashSet {
+    // Біти 0L (тобто +0.0) використовуються як позначка порожньої комірки,
+    // тому саме значення +0.0 зберігаємо окремим прапорцем
+    private static final long EMPTY = 0L;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private int mask;
+    private int size;
+    private int resizeAt;
+    private boolean hasZero;
+
+    public DoubleHashSet() {
+        this(16);
+    }
+
+    public DoubleHashSet(int expectedSize) {
+        int capacity = tableSizeFor((int) Math.ceil(Math.max(expectedSize, 2) / LOAD_FACTOR));
+        allocate(capacity);
+    }
+
+    /**
+     * Додає значення. Повертає true, якщо його ще не було у множині.
+     */
+    public boolean add(double value) {
+        long bits = Double.doubleToLongBits(value);
+        if (bits == EMPTY) {
+            if (hasZero) return false;
+            hasZero = true;
+            size++;
+            return true;
+        }
+        if (insert(keys, mask, bits)) {
+            if (++size > resizeAt) {
+                rehash(keys.length << 1);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    public boolean contains(double value) {
+        long bits = Double.doubleToLongBits(value);
+        if (bits == EMPTY) return hasZero;
+        int i = mix(bits) & mask;
+        long k;
+        while ((k = keys[i]) != EMPTY) {
+            if (k == bits) return true;
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Копіює значення у масив dest починаючи з offset. Повертає кількість записаних елементів.
+     */
+    public int copyTo(double[] dest, int offset) {
+        int pos = offset;
+        if (hasZero) dest[pos++] = 0.0;
+        for (long k : keys) {
+            if (k != EMPTY) dest[pos++] = Double.longBitsToDouble(k);
+        }
+        return pos - offset;
+    }
+
+    public double[] toArray() {
+        double[] result = new double[size];
+        copyTo(result, 0);
+        return result;
+    }
+
+    public void forEach(DoubleConsumer action) {
+        if (hasZero) action.accept(0.0);
+        for (long k : keys) {
+            if (k != EMPTY) action.accept(Double.longBitsToDouble(k));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+    // --- Внутрішні методи ---
+
+    private static boolean insert(long[] table, int mask, long bits) {
+        int i = mix(bits) & mask;
+        long k;
+        while ((k = table[i]) != EMPTY) {
+            if (k == bits) return false;
+            i = (i + 1) & mask;
+        }
+        table[i] = bits;
+        return true;
+    }
+
+    private void rehash(int newCapacity) {
+        long[] old = keys;
+        allocate(newCapacity);
+        for (long k : old) {
+            if (k != EMPTY) insert(keys, mask, k);
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    // Перемішування бітів (фіналізатор murmur3), щоб близькі double не потрапляли в сусідні комірки
+    static int mix(long bits) {
+        bits ^= bits >>> 33;
+        bits *= 0xff51afd7ed558ccdL;
+        bits ^= bits >>> 33;
+        bits *= 0xc4ceb9fe1a85ec53L;
+        bits ^= bits >>> 33;
+        return (int) bits;
+    }
+
+    static int tableSizeFor(int n) {
+        int capacity = Integer.highestOneBit(Math.max(n - 1, 1)) << 1;
+        return capacity > 0 ? capacity : 1 << 30;
+    }
+}
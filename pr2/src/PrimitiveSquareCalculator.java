@@ -0,0 +1,42 @@
+import java.util.concurrent.Callable;
+
+/**
+ * Примітивна версія SquareCalculator.
+ * Працює з double[] без boxing: читає діапазон [from, to) вхідного масиву
+ * і записує квадрати у заздалегідь виділений вихідний масив за тим самим зміщенням.
+ * Якщо передано sink, квадрати одразу додаються у спільну ConcurrentDoubleHashSet
+ * прямо з робочого потоку, без окремого етапу злиття.
+ * Повертає кількість оброблених елементів.
+ */
+class PrimitiveSquareCalculator implements Callable<Integer> {
+    private final double[] input;
+    private final double[] output;
+    private final int from;
+    private final int to;
+    private final ConcurrentDoubleHashSet sink;
+
+    public PrimitiveSquareCalculator(double[] input, double[] output, int from, int to) {
+        this(input, output, from, to, null);
+    }
+
+    public PrimitiveSquareCalculator(double[] input, double[] output, int from, int to, ConcurrentDoubleHashSet sink) {
+        this.input = input;
+        this.output = output;
+        this.from = from;
+        this.to = to;
+        this.sink = sink;
+    }
+
+    @Override
+    public Integer call() {
+        // Ніяких копій частин масиву та проміжних об'єктів - тільки запис за зміщенням
+        for (int i = from; i < to; i++) {
+            double x = input[i];
+            output[i] = x * x;
+        }
+        if (sink != null) {
+            sink.addAll(output, from, to);
+        }
+        return to - from;
+    }
+}
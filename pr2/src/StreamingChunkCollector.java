@@ -0,0 +1,132 @@
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * Потоковий збір результатів частин у порядку їх ЗАВЕРШЕННЯ (ExecutorCompletionService).
+ * На відміну від циклу по futureList, повільна частина не блокує злиття тих, що вже готові.
+ * Кількість задач "у польоті" обмежена вікном maxInFlight: нова частина відправляється
+ * лише після того, як одна з попередніх була забрана та злита, тому продюсер не випереджає пам'ять.
+ */
+class StreamingChunkCollector<T> {
+
+    private final ExecutorService executor;
+    private final int maxInFlight;
+
+    public StreamingChunkCollector(ExecutorService executor, int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight має бути >= 1");
+        }
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Виконує задачі з tasks (ітератор читається ліниво) і передає кожен результат у merger
+     * одразу після завершення. merger викликається лише з поточного потоку, тому синхронізація не потрібна.
+     */
+    public Stats collect(Iterator<? extends Callable<T>> tasks, Consumer<T> merger)
+            throws InterruptedException, ExecutionException {
+        CompletionService<TimedResult<T>> completionService = new ExecutorCompletionService<>(executor);
+        Stats stats = new Stats();
+        // Відправлені, але ще не забрані задачі; якщо вихід аварійний, вони скасовуються
+        Set<Future<TimedResult<T>>> inFlight = new HashSet<>();
+        int chunkId = 0;
+
+        try {
+            while (tasks.hasNext() || !inFlight.isEmpty()) {
+                // Доповнюємо вікно новими задачами
+                while (inFlight.size() < maxInFlight && tasks.hasNext()) {
+                    inFlight.add(completionService.submit(new TimedTask<>(tasks.next(), ++chunkId)));
+                }
+                // take() повертає першу ЗАВЕРШЕНУ задачу, незалежно від порядку відправки
+                Future<TimedResult<T>> future = completionService.take();
+                inFlight.remove(future);
+                TimedResult<T> done = future.get();
+                merger.accept(done.value);
+                stats.record(done);
+            }
+        } finally {
+            // Помилка частини, переривання або виняток у merger - решта частин уже нікому не потрібна
+            for (Future<TimedResult<T>> future : inFlight) {
+                future.cancel(true);
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Обгортка, що фіксує моменти відправки, початку та завершення виконання.
+     */
+    private static class TimedTask<T> implements Callable<TimedResult<T>> {
+        private final Callable<T> task;
+        private final int chunkId;
+        private final long submittedAt = System.nanoTime();
+
+        TimedTask(Callable<T> task, int chunkId) {
+            this.task = task;
+            this.chunkId = chunkId;
+        }
+
+        @Override
+        public TimedResult<T> call() throws Exception {
+            long startedAt = System.nanoTime();
+            T value = task.call();
+            return new TimedResult<>(chunkId, value, startedAt - submittedAt, System.nanoTime() - startedAt);
+        }
+    }
+
+    private static class TimedResult<T> {
+        final int chunkId;
+        final T value;
+        final long queueWaitNanos;
+        final long latencyNanos;
+
+        TimedResult(int chunkId, T value, long queueWaitNanos, long latencyNanos) {
+            this.chunkId = chunkId;
+            this.value = value;
+            this.queueWaitNanos = queueWaitNanos;
+            this.latencyNanos = latencyNanos;
+        }
+    }
+
+    /**
+     * Статистика по частинах: час виконання та час очікування у черзі пулу.
+     */
+    static class Stats {
+        private int chunks;
+        private long totalLatency;
+        private long maxLatency;
+        private long minLatency = Long.MAX_VALUE;
+        private long totalWait;
+        private long maxWait;
+        private boolean outOfOrder;
+        private int lastChunkId;
+
+        private void record(TimedResult<?> result) {
+            chunks++;
+            totalLatency += result.latencyNanos;
+            maxLatency = Math.max(maxLatency, result.latencyNanos);
+            minLatency = Math.min(minLatency, result.latencyNanos);
+            totalWait += result.queueWaitNanos;
+            maxWait = Math.max(maxWait, result.queueWaitNanos);
+            if (result.chunkId < lastChunkId) outOfOrder = true;
+            lastChunkId = result.chunkId;
+        }
+
+        public int getChunks() {
+            return chunks;
+        }
+
+        @Override
+        public String toString() {
+            if (chunks == 0) return "Частин: 0";
+            return String.format("Частин: %d | Виконання (мін/сер/макс): %.2f/%.2f/%.2f мс | "
+                            + "Очікування в черзі (сер/макс): %.2f/%.2f мс | Злиття не в порядку відправки: %s",
+                    chunks, minLatency / 1e6, totalLatency / 1e6 / chunks, maxLatency / 1e6,
+                    totalWait / 1e6 / chunks, maxWait / 1e6, outOfOrder ? "так" : "ні");
+        }
+    }
+}
@@ -0,0 +1,344 @@
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Обхід дерева директорій з обмеженим I/O-паралелізмом.
+ * На відміну від FileCounterTask (одна задача ForkJoin на кожну піддиректорію, паралелізм = кількість ядер),
+ * тут кількість потоків, що одночасно читають диск, задається окремо - для повільних або мережевих дисків
+ * вона зазвичай має бути меншою (HDD) або більшою (NFS з високою затримкою) за кількість ядер.
+ *
+ * Задача - це пакет директорій: знайдені піддиректорії накопичуються і публікуються групами по batchSize,
+ * тож дрібні директорії не перетворюються на окремі крихітні задачі.
+ * Кожен потік має власну обмежену чергу (deque): власник бере з голови, інші потоки крадуть з хвоста.
+ * Якщо черга заповнена, пакет обробляється на місці (в глибину), тому черги не ростуть необмежено.
+ * Потік без роботи паркується; publish() будить одного з тих, хто чекає.
+ * Помилка в будь-якому потоці зупиняє весь обхід, і count() кидає її далі.
+ */
+class BoundedFileTraversal {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 64;
+    public static final int DEFAULT_BATCH_SIZE = 16;
+
+    private final int ioThreads;
+    private final int queueCapacity;
+    private final int batchSize;
+
+    public BoundedFileTraversal(int ioThreads) {
+        this(ioThreads, DEFAULT_QUEUE_CAPACITY, DEFAULT_BATCH_SIZE);
+    }
+
+    public BoundedFileTraversal(int ioThreads, int queueCapacity, int batchSize) {
+        if (ioThreads < 1 || queueCapacity < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("ioThreads, queueCapacity і batchSize мають бути >= 1");
+        }
+        this.ioThreads = ioThreads;
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Рахує файли, більші за sizeThreshold, у дереві root. Викликаючий потік чекає завершення обходу.
+     * Якщо викликаючий потік перервано, обхід зупиняється і повертається неповна статистика
+     * (статус переривання відновлюється); помилка робочого потоку кидається звідси.
+     */
+    public Stats count(Path root, long sizeThreshold) {
+        Run run = new Run(sizeThreshold);
+        List<Path> first = new ArrayList<>(1);
+        first.add(root);
+        run.pending.incrementAndGet();
+        run.queues.get(0).offerFirst(first);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ioThreads; i++) {
+            int id = i;
+            run.threads[i] = new Thread(() -> run.work(id), "file-io-" + i);
+        }
+        for (Thread thread : run.threads) {
+            thread.start();
+        }
+        // Чекаємо всі потоки навіть після переривання: повертатися, поки вони ще працюють, не можна
+        boolean interrupted = false;
+        for (Thread thread : run.threads) {
+            while (true) {
+                try {
+                    thread.join();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    run.stop();
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        Throwable failure = run.failure.get();
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        if (failure != null) {
+            throw new IllegalStateException("Помилка обходу " + root, failure);
+        }
+        return run.toStats(System.nanoTime() - start);
+    }
+
+    // Стан одного обходу; робочі потоки живуть лише під час виклику count()
+    private class Run {
+        final long sizeThreshold;
+        final List<LinkedBlockingDeque<List<Path>>> queues = new ArrayList<>(ioThreads);
+        final Thread[] threads = new Thread[ioThreads];
+        // 1 - потік запарковано або збирається паркуватися; скидає той, хто будить
+        final AtomicIntegerArray idle = new AtomicIntegerArray(ioThreads);
+        // Кількість опублікованих, але ще не оброблених пакетів; 0 - обхід завершено
+        final AtomicLong pending = new AtomicLong();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        volatile boolean stopped;
+
+        final LongAdder matched = new LongAdder();
+        final LongAdder directories = new LongAdder();
+        final LongAdder syscalls = new LongAdder();
+        final LongAdder steals = new LongAdder();
+        final LongAdder inlineBatches = new LongAdder();
+        final LongAdder queueDepthSum = new LongAdder();
+        final LongAdder queueDepthSamples = new LongAdder();
+        final AtomicLong maxQueueDepth = new AtomicLong();
+
+        Run(long sizeThreshold) {
+            this.sizeThreshold = sizeThreshold;
+            for (int i = 0; i < ioThreads; i++) {
+                queues.add(new LinkedBlockingDeque<>(queueCapacity));
+            }
+        }
+
+        void work(int id) {
+            LinkedBlockingDeque<List<Path>> own = queues.get(id);
+            int idleSpins = 0;
+            while (!stopped && pending.get() > 0) {
+                List<Path> batch = own.pollFirst();
+                if (batch == null) {
+                    batch = steal(id);
+                }
+                if (batch == null) {
+                    // Роботи поки немає, але інші потоки ще можуть її опублікувати
+                    if (++idleSpins > 64) {
+                        awaitWork(id);
+                    } else {
+                        Thread.onSpinWait();
+                    }
+                    continue;
+                }
+                idleSpins = 0;
+                try {
+                    process(id, batch);
+                } catch (Throwable e) {
+                    // Включно зі StackOverflowError від обробки на місці у дуже глибокому дереві
+                    failure.compareAndSet(null, e);
+                    stop();
+                } finally {
+                    completed();
+                }
+            }
+        }
+
+        // Спершу позначаємося як idle, потім перевіряємо черги: publish() або побачить позначку, або пакет уже в черзі
+        private void awaitWork(int id) {
+            idle.set(id, 1);
+            if (!stopped && pending.get() > 0 && !hasQueuedWork()) {
+                LockSupport.park(this);
+            }
+            idle.set(id, 0);
+        }
+
+        private boolean hasQueuedWork() {
+            for (LinkedBlockingDeque<List<Path>> queue : queues) {
+                if (!queue.isEmpty()) return true;
+            }
+            return false;
+        }
+
+        // Пакет оброблено (або він впав); після останнього будимо всіх, щоб вони вийшли з work()
+        private void completed() {
+            if (pending.decrementAndGet() == 0) {
+                wakeAll();
+            }
+        }
+
+        void stop() {
+            stopped = true;
+            wakeAll();
+        }
+
+        private void wakeAll() {
+            for (int i = 0; i < threads.length; i++) {
+                idle.set(i, 0);
+                LockSupport.unpark(threads[i]);
+            }
+        }
+
+        private void wakeOne() {
+            for (int i = 0; i < threads.length; i++) {
+                if (idle.get(i) == 1 && idle.compareAndSet(i, 1, 0)) {
+                    LockSupport.unpark(threads[i]);
+                    return;
+                }
+            }
+        }
+
+        List<Path> steal(int id) {
+            int start = ThreadLocalRandom.current().nextInt(queues.size());
+            for (int i = 0; i < queues.size(); i++) {
+                int victim = (start + i) % queues.size();
+                if (victim == id) continue;
+                List<Path> batch = queues.get(victim).pollLast();
+                if (batch != null) {
+                    steals.increment();
+                    return batch;
+                }
+            }
+            return null;
+        }
+
+        void process(int id, List<Path> batch) {
+            List<Path> subdirs = new ArrayList<>(batchSize);
+            for (Path dir : batch) {
+                if (stopped) return;
+                directories.increment();
+                syscalls.increment(); // opendir + readdir
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                    for (Path entry : stream) {
+                        BasicFileAttributes attrs;
+                        try {
+                            syscalls.increment(); // lstat
+                            attrs = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                        } catch (IOException e) {
+                            continue;
+                        }
+                        if (attrs.isDirectory()) {
+                            subdirs.add(entry);
+                            if (subdirs.size() == batchSize) {
+                                publish(id, subdirs);
+                                subdirs = new ArrayList<>(batchSize);
+                            }
+                        } else if (attrs.isRegularFile() && attrs.size() > sizeThreshold) {
+                            matched.increment();
+                        }
+                    }
+                } catch (IOException | DirectoryIteratorException e) {
+                    // Немає доступу до директорії - пропускаємо її
+                }
+            }
+            if (!subdirs.isEmpty()) {
+                publish(id, subdirs);
+            }
+        }
+
+        void publish(int id, List<Path> batch) {
+            LinkedBlockingDeque<List<Path>> own = queues.get(id);
+            pending.incrementAndGet();
+            if (own.offerFirst(batch)) {
+                int depth = own.size();
+                queueDepthSum.add(depth);
+                queueDepthSamples.increment();
+                maxQueueDepth.accumulateAndGet(depth, Math::max);
+                wakeOne();
+            } else {
+                // Черга повна - обробляємо пакет одразу, у глибину
+                inlineBatches.increment();
+                try {
+                    process(id, batch);
+                } finally {
+                    completed();
+                }
+            }
+        }
+
+        Stats toStats(long elapsedNanos) {
+            long samples = queueDepthSamples.sum();
+            return new Stats(matched.sum(), directories.sum(), syscalls.sum(), steals.sum(), inlineBatches.sum(),
+                    maxQueueDepth.get(), samples == 0 ? 0 : (double) queueDepthSum.sum() / samples, elapsedNanos);
+        }
+    }
+
+    /**
+     * Результат і метрики обходу.
+     */
+    static class Stats {
+        private final long matched;
+        private final long directories;
+        private final long syscalls;
+        private final long steals;
+        private final long inlineBatches;
+        private final long maxQueueDepth;
+        private final double averageQueueDepth;
+        private final long elapsedNanos;
+
+        Stats(long matched, long directories, long syscalls, long steals, long inlineBatches,
+              long maxQueueDepth, double averageQueueDepth, long elapsedNanos) {
+            this.matched = matched;
+            this.directories = directories;
+            this.syscalls = syscalls;
+            this.steals = steals;
+            this.inlineBatches = inlineBatches;
+            this.maxQueueDepth = maxQueueDepth;
+            this.averageQueueDepth = averageQueueDepth;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long getMatched() {
+            return matched;
+        }
+
+        public long getDirectories() {
+            return directories;
+        }
+
+        public long getSyscalls() {
+            return syscalls;
+        }
+
+        public long getSteals() {
+            return steals;
+        }
+
+        public long getInlineBatches() {
+            return inlineBatches;
+        }
+
+        public long getMaxQueueDepth() {
+            return maxQueueDepth;
+        }
+
+        public double getAverageQueueDepth() {
+            return averageQueueDepth;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public double getSyscallsPerSecond() {
+            return elapsedNanos == 0 ? 0 : syscalls * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("директорій: %d, системних викликів: %d (%.0f/с), крадіжок: %d, "
+                            + "пакетів оброблено на місці: %d, глибина черги: макс %d, сер. %.1f",
+                    directories, syscalls, getSyscallsPerSecond(), steals, inlineBatches, maxQueueDepth, averageQueueDepth);
+        }
+    }
+}
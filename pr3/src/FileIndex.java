@@ -0,0 +1,344 @@
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Збережений на диск індекс дерева файлів: для кожної директорії - її mtime, імена та розміри файлів
+ * і імена піддиректорій. Плюс відсортований масив усіх розмірів, тому запит
+ * "скільки файлів більших за поріг" виконується бінарним пошуком, без обходу диска.
+ *
+ * Повторне сканування (refresh) перечитує лише директорії, у яких змінився mtime. Для незмінених
+ * директорій береться список файлів з індексу, а на диску перевіряються тільки mtime піддиректорій.
+ * Обмеження: mtime директорії змінюється при створенні/видаленні/перейменуванні файлів, але НЕ при
+ * зміні вмісту файлу, тому змінений на місці розмір буде застарілим до повного сканування (scan).
+ */
+class FileIndex {
+    private static final int MAGIC = 0x46494458; // "FIDX"
+    private static final int VERSION = 1;
+
+    private final Path root;
+    private final Map<String, DirEntry> directories;
+    private final long[] sortedSizes;
+    // suffixBytes[i] - сума sortedSizes[i..n); не зберігається у файлі, будується при створенні індексу
+    private final long[] suffixBytes;
+    private final long dirsListed;
+    private final long dirsReused;
+
+    private FileIndex(Path root, Map<String, DirEntry> directories, long dirsListed, long dirsReused) {
+        this(root, directories, collectSortedSizes(directories), dirsListed, dirsReused);
+    }
+
+    private FileIndex(Path root, Map<String, DirEntry> directories, long[] sortedSizes, long dirsListed, long dirsReused) {
+        this.root = root;
+        this.directories = directories;
+        this.sortedSizes = sortedSizes;
+        this.suffixBytes = new long[sortedSizes.length + 1];
+        for (int i = sortedSizes.length - 1; i >= 0; i--) {
+            suffixBytes[i] = suffixBytes[i + 1] + sortedSizes[i];
+        }
+        this.dirsListed = dirsListed;
+        this.dirsReused = dirsReused;
+    }
+
+    /**
+     * Повне ("холодне") сканування дерева.
+     */
+    public static FileIndex scan(ForkJoinPool pool, Path root) {
+        return refresh(pool, root, null);
+    }
+
+    /**
+     * Повне сканування, що викликає beforeList для кожної директорії ПЕРЕД читанням її вмісту
+     * (з потоків пулу). Так FileWatchDaemon реєструє директорію у WatchService до того, як її прочитано:
+     * файл, створений після читання, гарантовано дасть подію.
+     */
+    public static FileIndex scan(ForkJoinPool pool, Path root, Consumer<Path> beforeList) {
+        return build(pool, root, null, beforeList);
+    }
+
+    /**
+     * Інкрементальне сканування: директорії з незмінним mtime не перечитуються.
+     * previous може бути null (тоді це повне сканування) або індексом іншого кореня (тоді ігнорується).
+     */
+    public static FileIndex refresh(ForkJoinPool pool, Path root, FileIndex previous) {
+        return build(pool, root, previous, dir -> { });
+    }
+
+    private static FileIndex build(ForkJoinPool pool, Path root, FileIndex previous, Consumer<Path> beforeList) {
+        Path normalizedRoot = root.toAbsolutePath().normalize();
+        Map<String, DirEntry> old = previous != null && previous.root.equals(normalizedRoot)
+                ? previous.directories : Collections.emptyMap();
+
+        Map<String, DirEntry> result = new ConcurrentHashMap<>();
+        AtomicLong listed = new AtomicLong();
+        AtomicLong reused = new AtomicLong();
+        try {
+            long rootMtime = Files.readAttributes(normalizedRoot, BasicFileAttributes.class).lastModifiedTime().to(TimeUnit.NANOSECONDS);
+            pool.invoke(new IndexTask(normalizedRoot, "", rootMtime, old, result, listed, reused, beforeList));
+        } catch (IOException e) {
+            // корінь недоступний - порожній індекс
+        }
+        return new FileIndex(normalizedRoot, new HashMap<>(result), listed.get(), reused.get());
+    }
+
+    /**
+     * Кількість файлів, більших за sizeThreshold (O(log n)).
+     */
+    public long countLargerThan(long sizeThreshold) {
+        return sortedSizes.length - upperBound(sizeThreshold);
+    }
+
+    /**
+     * Сумарний розмір файлів, більших за sizeThreshold (O(log n)).
+     */
+    public long bytesLargerThan(long sizeThreshold) {
+        return suffixBytes[upperBound(sizeThreshold)];
+    }
+
+    public long getFileCount() {
+        return sortedSizes.length;
+    }
+
+    public int getDirectoryCount() {
+        return directories.size();
+    }
+
+    // Скільки директорій довелося перечитати з диска та скільки взято з попереднього індексу
+    public long getDirsListed() {
+        return dirsListed;
+    }
+
+    public long getDirsReused() {
+        return dirsReused;
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * Обхід усіх файлів індексу: абсолютний шлях і розмір.
+     */
+    void forEachFile(ObjLongConsumer<Path> action) {
+        for (Map.Entry<String, DirEntry> e : directories.entrySet()) {
+            Path dir = resolve(e.getKey());
+            DirEntry entry = e.getValue();
+            for (int i = 0; i < entry.fileNames.length; i++) {
+                action.accept(dir.resolve(entry.fileNames[i]), entry.fileSizes[i]);
+            }
+        }
+    }
+
+    private Path resolve(String key) {
+        return key.isEmpty() ? root : root.resolve(key);
+    }
+
+    // Перший індекс, де розмір > threshold
+    private int upperBound(long threshold) {
+        int lo = 0;
+        int hi = sortedSizes.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sortedSizes[mid] <= threshold) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    // --------------------------------------------------------
+    // Формат файлу індексу (DataOutput, big-endian):
+    //   int MAGIC, int VERSION, UTF root, int dirCount,
+    //   для кожної директорії: UTF відносний шлях, long mtime,
+    //     int fileCount, [UTF ім'я, long розмір]*, int subdirCount, [UTF ім'я]*
+    //   int sizeCount, long[] відсортовані розміри
+    // --------------------------------------------------------
+
+    public void save(Path file) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(root.toString());
+            out.writeInt(directories.size());
+            for (Map.Entry<String, DirEntry> e : directories.entrySet()) {
+                DirEntry dir = e.getValue();
+                out.writeUTF(e.getKey());
+                out.writeLong(dir.mtime);
+                out.writeInt(dir.fileNames.length);
+                for (int i = 0; i < dir.fileNames.length; i++) {
+                    out.writeUTF(dir.fileNames[i]);
+                    out.writeLong(dir.fileSizes[i]);
+                }
+                out.writeInt(dir.subdirs.length);
+                for (String subdir : dir.subdirs) {
+                    out.writeUTF(subdir);
+                }
+            }
+            out.writeInt(sortedSizes.length);
+            for (long size : sortedSizes) {
+                out.writeLong(size);
+            }
+        }
+        // Атомарна заміна: читач ніколи не побачить наполовину записаний індекс
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static FileIndex load(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Файл " + file + " не є індексом потрібної версії");
+            }
+            Path root = Paths.get(in.readUTF());
+            int dirCount = in.readInt();
+            Map<String, DirEntry> directories = new HashMap<>(dirCount * 2);
+            for (int d = 0; d < dirCount; d++) {
+                String key = in.readUTF();
+                long mtime = in.readLong();
+                int fileCount = in.readInt();
+                String[] names = new String[fileCount];
+                long[] sizes = new long[fileCount];
+                for (int i = 0; i < fileCount; i++) {
+                    names[i] = in.readUTF();
+                    sizes[i] = in.readLong();
+                }
+                String[] subdirs = new String[in.readInt()];
+                for (int i = 0; i < subdirs.length; i++) {
+                    subdirs[i] = in.readUTF();
+                }
+                directories.put(key, new DirEntry(mtime, names, sizes, subdirs));
+            }
+            long[] sortedSizes = new long[in.readInt()];
+            for (int i = 0; i < sortedSizes.length; i++) {
+                sortedSizes[i] = in.readLong();
+            }
+            return new FileIndex(root, directories, sortedSizes, 0, 0);
+        }
+    }
+
+    private static long[] collectSortedSizes(Map<String, DirEntry> directories) {
+        int total = 0;
+        for (DirEntry dir : directories.values()) {
+            total += dir.fileSizes.length;
+        }
+        long[] sizes = new long[total];
+        int pos = 0;
+        for (DirEntry dir : directories.values()) {
+            System.arraycopy(dir.fileSizes, 0, sizes, pos, dir.fileSizes.length);
+            pos += dir.fileSizes.length;
+        }
+        Arrays.parallelSort(sizes);
+        return sizes;
+    }
+
+    /**
+     * Вміст однієї директорії в індексі.
+     */
+    static class DirEntry {
+        final long mtime;
+        final String[] fileNames;
+        final long[] fileSizes;
+        final String[] subdirs;
+
+        DirEntry(long mtime, String[] fileNames, long[] fileSizes, String[] subdirs) {
+            this.mtime = mtime;
+            this.fileNames = fileNames;
+            this.fileSizes = fileSizes;
+            this.subdirs = subdirs;
+        }
+    }
+
+    /**
+     * Задача індексації однієї директорії; для піддиректорій створюються підзадачі (як у FileCounterTask).
+     */
+    private static class IndexTask extends RecursiveAction {
+        private final Path directory;
+        private final String key;
+        private final long mtime;
+        private final Map<String, DirEntry> previous;
+        private final Map<String, DirEntry> result;
+        private final AtomicLong listed;
+        private final AtomicLong reused;
+        private final Consumer<Path> beforeList;
+
+        IndexTask(Path directory, String key, long mtime, Map<String, DirEntry> previous,
+                  Map<String, DirEntry> result, AtomicLong listed, AtomicLong reused, Consumer<Path> beforeList) {
+            this.directory = directory;
+            this.key = key;
+            this.mtime = mtime;
+            this.previous = previous;
+            this.result = result;
+            this.listed = listed;
+            this.reused = reused;
+            this.beforeList = beforeList;
+        }
+
+        @Override
+        protected void compute() {
+            beforeList.accept(directory);
+            List<IndexTask> subTasks = new ArrayList<>();
+            DirEntry old = previous.get(key);
+
+            if (old != null && old.mtime == mtime) {
+                // Директорія не змінювалась: файли беремо з індексу, з диска читаємо лише mtime піддиректорій
+                reused.incrementAndGet();
+                result.put(key, old);
+                for (String name : old.subdirs) {
+                    Path child = directory.resolve(name);
+                    try {
+                        BasicFileAttributes attrs = Files.readAttributes(child, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                        if (attrs.isDirectory()) {
+                            subTasks.add(subTask(child, name, attrs));
+                        }
+                    } catch (IOException e) {
+                        // Піддиректорію щойно видалено (паралельно зі скануванням) - пропускаємо
+                    }
+                }
+            } else {
+                listed.incrementAndGet();
+                List<String> names = new ArrayList<>();
+                List<Long> sizes = new ArrayList<>();
+                List<String> subdirs = new ArrayList<>();
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+                    for (Path entry : stream) {
+                        BasicFileAttributes attrs;
+                        try {
+                            attrs = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                        } catch (IOException e) {
+                            continue;
+                        }
+                        String name = entry.getFileName().toString();
+                        if (attrs.isDirectory()) {
+                            subdirs.add(name);
+                            subTasks.add(subTask(entry, name, attrs));
+                        } else if (attrs.isRegularFile()) {
+                            names.add(name);
+                            sizes.add(attrs.size());
+                        }
+                    }
+                } catch (IOException | DirectoryIteratorException e) {
+                    // Немає доступу - директорія потрапляє в індекс порожньою
+                }
+                long[] sizeArray = new long[sizes.size()];
+                for (int i = 0; i < sizeArray.length; i++) {
+                    sizeArray[i] = sizes.get(i);
+                }
+                result.put(key, new DirEntry(mtime, names.toArray(new String[0]), sizeArray, subdirs.toArray(new String[0])));
+            }
+
+            invokeAll(subTasks);
+        }
+
+        private IndexTask subTask(Path child, String name, BasicFileAttributes attrs) {
+            String childKey = key.isEmpty() ? name : key + "/" + name;
+            return new IndexTask(child, childKey, attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS), previous, result, listed, reused, beforeList);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Порівняння "холодного" і "теплого" пошуку файлів:
+ *  1) повний обхід FileCounterTask (як у FileSearchApp);
+ *  2) повна побудова FileIndex і збереження на диск;
+ *  3) завантаження індексу з диска;
+ *  4) інкрементальне оновлення індексу (перечитуються лише змінені директорії);
+ *  5) запит за порогом з індексу.
+ */
+public class FileIndexBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        Scanner scanner = new Scanner(System.in);
+
+        System.out.println("=== Бенчмарк індексу файлів ===");
+        System.out.print("Введіть шлях до стартової директорії: ");
+        Path root = Paths.get(scanner.nextLine());
+        System.out.print("Введіть мінімальний розмір файлу (у байтах): ");
+        long sizeThreshold = scanner.nextLong();
+
+        if (!Files.isDirectory(root)) {
+            System.out.println("Помилка: Вказаний шлях не існує або це не директорія.");
+            return;
+        }
+        Path indexFile = Files.createTempFile("file-index", ".bin");
+        ForkJoinPool pool = new ForkJoinPool();
+
+        try {
+            long start = System.nanoTime();
+            int countByWalk = pool.invoke(new FileSearchApp.FileCounterTask(root.toFile(), sizeThreshold));
+            printTime("Повний обхід (FileCounterTask)", start, "знайдено " + countByWalk);
+
+            start = System.nanoTime();
+            FileIndex cold = FileIndex.scan(pool, root);
+            cold.save(indexFile);
+            printTime("Холодна побудова індексу + збереження", start,
+                    cold.getDirectoryCount() + " директорій, " + cold.getFileCount() + " файлів, "
+                            + Files.size(indexFile) + " байт на диску");
+
+            start = System.nanoTime();
+            FileIndex loaded = FileIndex.load(indexFile);
+            printTime("Завантаження індексу", start, "");
+
+            start = System.nanoTime();
+            FileIndex warm = FileIndex.refresh(pool, root, loaded);
+            printTime("Тепле оновлення індексу", start,
+                    "перечитано " + warm.getDirsListed() + ", з індексу " + warm.getDirsReused() + " директорій");
+
+            start = System.nanoTime();
+            long countByIndex = warm.countLargerThan(sizeThreshold);
+            printTime("Запит за порогом з індексу", start, "знайдено " + countByIndex);
+        } finally {
+            pool.shutdown();
+            Files.deleteIfExists(indexFile);
+        }
+    }
+
+    private static void printTime(String stage, long startTime, String details) {
+        System.out.printf("%-40s %10.3f мс  %s%n", stage, (System.nanoTime() - startTime) / 1_000_000.0, details);
+    }
+}
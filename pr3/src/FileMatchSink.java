@@ -0,0 +1,13 @@
+import java.nio.file.Path;
+
+/**
+ * Споживач знайдених файлів. Викликається одразу, як тільки файл знайдено,
+ * з робочих потоків ForkJoinPool - реалізація має бути потокобезпечною.
+ */
+@FunctionalInterface
+interface FileMatchSink {
+
+    FileMatchSink NONE = (path, size) -> { };
+
+    void onMatch(Path path, long size);
+}
@@ -1,6 +1,12 @@
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.RecursiveTask;
@@ -10,6 +16,43 @@ public class FileSearchApp {
     public static void main(String[] args) {
         Scanner scanner = new Scanner(System.in);
 
+        // --nio          - обхід через java.nio.file (DirectoryStream + BasicFileAttributes)
+        // --follow-links - для --nio: розкривати символьні посилання на директорії (із захистом від циклів)
+        List<String> options = Arrays.asList(args);
+        boolean nio = options.contains("--nio");
+        boolean followLinks = options.contains("--follow-links");
+        // --report       - розширений звіт (байти, найбільші файли, розширення, гістограма)
+        // --top=N        - скільки найбільших файлів показати у звіті (за замовчуванням 10)
+        // --limit=N      - зупинити пошук після N знайдених файлів
+        // --list         - друкувати кожен знайдений файл одразу, як він знайдений
+        boolean report = options.contains("--report");
+        int topN = (int) optionValue(options, "--top=", 10);
+        long limit = optionValue(options, "--limit=", FileSearchTask.NO_LIMIT);
+        boolean list = options.contains("--list");
+        // --index=ФАЙЛ   - відповідати з індексу на диску (створюється при першому запуску,
+        //                  далі оновлюються лише директорії зі зміненим mtime)
+        // --watch        - фоновий режим: одне сканування, далі оновлення за подіями WatchService
+        //                  і відповіді на запити за будь-яким порогом без обходу диска
+        boolean watch = options.contains("--watch");
+        // --cpu-threads=N - паралелізм ForkJoinPool (за замовчуванням кількість ядер)
+        // --io-threads=N  - обхід з обмеженою кількістю потоків введення-виведення (BoundedFileTraversal)
+        // --queue=N       - для --io-threads: місткість черги кожного потоку
+        // --batch=N       - для --io-threads: скільки директорій об'єднувати в одну задачу
+        int cpuThreads = (int) optionValue(options, "--cpu-threads=", Runtime.getRuntime().availableProcessors());
+        int ioThreads = (int) optionValue(options, "--io-threads=", 0);
+        int queueCapacity = (int) optionValue(options, "--queue=", BoundedFileTraversal.DEFAULT_QUEUE_CAPACITY);
+        int batchSize = (int) optionValue(options, "--batch=", BoundedFileTraversal.DEFAULT_BATCH_SIZE);
+        // --metrics=ФАЙЛ - час пошуку, читання директорій і стан пулу у ФАЙЛ (JSON для *.json, інакше Prometheus)
+        String indexFile = null;
+        String metricsFile = null;
+        for (String option : options) {
+            if (option.startsWith("--index=")) {
+                indexFile = option.substring("--index=".length());
+            } else if (option.startsWith("--metrics=")) {
+                metricsFile = option.substring("--metrics=".length());
+            }
+        }
+
         // 1. Введення шляху та розміру
         System.out.println("=== Пошук файлів ===");
         System.out.print("Введіть шлях до стартової директорії: ");
@@ -31,22 +74,172 @@ public class FileSearchApp {
 
         // 2. Запуск Fork/Join задачі
         // Використовуємо commonPool або створюємо свій
-        ForkJoinPool pool = new ForkJoinPool();
-        FileCounterTask task = new FileCounterTask(startDir, sizeThreshold);
+        ForkJoinPool pool = new ForkJoinPool(cpuThreads);
+        Metrics.global().registerExecutor("forkjoin", pool);
+
+        Metrics.Exporter exporter = metricsFile == null ? null : Metrics.global().exportTo(Paths.get(metricsFile), 1000);
+        try {
+
+            if (ioThreads > 0) {
+                runBounded(new BoundedFileTraversal(ioThreads, queueCapacity, batchSize), startDir.toPath(), sizeThreshold);
+                return;
+            }
+
+            if (watch) {
+                runWatchDaemon(pool, startDir.toPath(), sizeThreshold, scanner);
+                return;
+            }
+
+            if (indexFile != null) {
+                runIndexed(pool, startDir.toPath(), sizeThreshold, Paths.get(indexFile));
+                return;
+            }
+
+            if (report) {
+                runReport(pool, startDir.toPath(), sizeThreshold, topN, limit, list);
+                return;
+            }
+
+            System.out.println("Пошук розпочато" + (nio ? " (NIO)" : "") + "...");
+            long startTime = System.nanoTime();
 
-        System.out.println("Пошук розпочато...");
+            long count;
+            if (nio) {
+                count = pool.invoke(new NioFileCounterTask(startDir.toPath(), sizeThreshold, followLinks));
+            } else {
+                count = pool.invoke(new FileCounterTask(startDir, sizeThreshold));
+            }
+
+            long endTime = System.nanoTime();
+            Metrics.global().record(nio ? "filesearch.nio" : "filesearch.io", endTime - startTime);
+
+            // 3. Результати
+            System.out.println("---------------------------");
+            System.out.println("Знайдено файлів: " + count);
+            System.out.printf("Час виконання: %.2f мс%n", (endTime - startTime) / 1_000_000.0);
+        } finally {
+            if (exporter != null) {
+                exporter.close();
+            }
+        }
+    }
+
+    private static void runReport(ForkJoinPool pool, Path root, long sizeThreshold, int topN, long limit, boolean list) {
+        // Споживач викликається з робочих потоків, тому друк синхронізовано
+        FileMatchSink sink = list
+                ? (file, size) -> {
+                    synchronized (System.out) {
+                        System.out.println("  знайдено: " + file + " (" + size + " байт)");
+                    }
+                }
+                : FileMatchSink.NONE;
+
+        System.out.println("Пошук розпочато (звіт)...");
         long startTime = System.nanoTime();
+        FileSearchResult result = pool.invoke(new FileSearchTask(root, sizeThreshold, topN, sink, limit));
+        long endTime = System.nanoTime();
+        Metrics.global().record("filesearch.report", endTime - startTime);
+
+        System.out.println("---------------------------");
+        System.out.println("Знайдено файлів: " + result.getCount()
+                + (result.getCount() >= limit ? " (досягнуто ліміт " + limit + ")" : ""));
+        System.out.println("Сумарний розмір: " + result.getTotalBytes() + " байт");
 
-        Integer count = pool.invoke(task);
+        System.out.println("Найбільші файли:");
+        for (FileSearchResult.Match match : result.getLargest()) {
+            System.out.println("  " + match);
+        }
+
+        System.out.println("За розширенням (кількість / байти):");
+        for (Map.Entry<String, long[]> e : result.getByExtension().entrySet()) {
+            System.out.printf("  %-20s %8d / %d%n", e.getKey(), e.getValue()[0], e.getValue()[1]);
+        }
+
+        System.out.println("Гістограма розмірів:");
+        long[] histogram = result.getHistogram();
+        for (int i = 0; i < histogram.length; i++) {
+            if (histogram[i] == 0) continue;
+            long from = i == 0 ? 0 : 1L << (i - 1);
+            System.out.printf("  від %d байт: %d%n", from, histogram[i]);
+        }
+        System.out.printf("Час виконання: %.2f мс%n", (endTime - startTime) / 1_000_000.0);
+    }
+
+    private static void runBounded(BoundedFileTraversal traversal, Path root, long sizeThreshold) {
+        System.out.println("Пошук розпочато (обмежений I/O-паралелізм)...");
+        BoundedFileTraversal.Stats stats = traversal.count(root, sizeThreshold);
+        Metrics.global().record("filesearch.bounded", stats.getElapsedNanos());
+
+        System.out.println("---------------------------");
+        System.out.println("Знайдено файлів: " + stats.getMatched());
+        System.out.println(stats);
+        System.out.printf("Час виконання: %.2f мс%n", stats.getElapsedNanos() / 1_000_000.0);
+    }
+
+    private static void runWatchDaemon(ForkJoinPool pool, Path root, long sizeThreshold, Scanner scanner) {
+        try (FileWatchDaemon daemon = new FileWatchDaemon(root, pool)) {
+            long startTime = System.nanoTime();
+            daemon.start();
+            long scanNanos = System.nanoTime() - startTime;
+            Metrics.global().record("filesearch.watch.scan", scanNanos);
+            System.out.printf("Початкове сканування: %.2f мс, файлів: %d, директорій під наглядом: %d%n",
+                    scanNanos / 1_000_000.0, daemon.getFileCount(), daemon.getWatchedDirectoryCount());
+
+            long threshold = sizeThreshold;
+            while (true) {
+                long queryStart = System.nanoTime();
+                long count = daemon.countLargerThan(threshold);
+                long bytes = daemon.bytesLargerThan(threshold);
+                long queryNanos = System.nanoTime() - queryStart;
+                Metrics.global().record("filesearch.watch.query", queryNanos);
+                System.out.printf("Файлів більших за %d байт: %d (%d байт), запит: %.1f мкс, подій оброблено: %d%n",
+                        threshold, count, bytes, queryNanos / 1000.0, daemon.getEventsProcessed());
 
+                System.out.print("Введіть новий поріг (або q для виходу): ");
+                if (!scanner.hasNextLong()) break;
+                threshold = scanner.nextLong();
+            }
+        } catch (IOException e) {
+            System.out.println("Помилка WatchService: " + e.getMessage());
+        }
+    }
+
+    private static void runIndexed(ForkJoinPool pool, Path root, long sizeThreshold, Path indexFile) {
+        long startTime = System.nanoTime();
+        FileIndex previous = null;
+        if (Files.exists(indexFile)) {
+            try {
+                previous = FileIndex.load(indexFile);
+            } catch (IOException e) {
+                System.out.println("Індекс пошкоджено, виконуємо повне сканування: " + e.getMessage());
+            }
+        }
+
+        FileIndex index = FileIndex.refresh(pool, root, previous);
+        try {
+            index.save(indexFile);
+        } catch (IOException e) {
+            System.out.println("Не вдалося зберегти індекс: " + e.getMessage());
+        }
         long endTime = System.nanoTime();
+        Metrics.global().record("filesearch.index", endTime - startTime);
 
-        // 3. Результати
         System.out.println("---------------------------");
-        System.out.println("Знайдено файлів: " + count);
+        System.out.println("Директорій перечитано: " + index.getDirsListed() + ", взято з індексу: " + index.getDirsReused());
+        System.out.println("Знайдено файлів: " + index.countLargerThan(sizeThreshold));
         System.out.printf("Час виконання: %.2f мс%n", (endTime - startTime) / 1_000_000.0);
     }
 
+    // Значення опції виду --name=число або defaultValue, якщо опцію не задано
+    private static long optionValue(List<String> options, String prefix, long defaultValue) {
+        for (String option : options) {
+            if (option.startsWith(prefix)) {
+                return Long.parseLong(option.substring(prefix.length()));
+            }
+        }
+        return defaultValue;
+    }
+
     /**
      * Рекурсивна задача для підрахунку файлів.
      * Повертає Integer - кількість знайдених файлів.
@@ -65,7 +258,10 @@ public class FileSearchApp {
             int count = 0;
             List<FileCounterTask> subTasks = new ArrayList<>();
 
+            // Затримка читання однієї директорії - основна складова часу пошуку
+            long listStart = System.nanoTime();
             File[] files = directory.listFiles();
+            Metrics.global().record("filesearch.list_dir", System.nanoTime() - listStart);
 
             if (files != null) {
                 for (File file : files) {
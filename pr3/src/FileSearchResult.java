@@ -0,0 +1,122 @@
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Результат пошуку файлів: кількість, сумарний розмір, N найбільших файлів,
+ * агрегати за розширенням та гістограма розмірів (кошики за степенями двійки).
+ * Кожна підзадача ForkJoin заповнює власний екземпляр, а батьківська задача зливає
+ * результати дітей після join(), тому блокування не потрібні. Клас НЕ потокобезпечний.
+ */
+class FileSearchResult {
+    // Кошик i містить файли з розміром у діапазоні [2^(i-1), 2^i), кошик 0 - порожні файли
+    static final int HISTOGRAM_BUCKETS = 64;
+
+    private final int topN;
+    private long count;
+    private long totalBytes;
+    // Мін-купа: на вершині найменший з N найбільших, його і витісняємо
+    private final PriorityQueue<Match> largest;
+    private final Map<String, long[]> byExtension = new HashMap<>(); // розширення -> {кількість, байти}
+    private final long[] histogram = new long[HISTOGRAM_BUCKETS];
+
+    FileSearchResult(int topN) {
+        this.topN = topN;
+        this.largest = new PriorityQueue<>(Math.max(topN, 1), Comparator.comparingLong(m -> m.size));
+    }
+
+    void add(Path path, long size) {
+        count++;
+        totalBytes += size;
+        histogram[bucketOf(size)]++;
+
+        long[] ext = byExtension.computeIfAbsent(extensionOf(path), k -> new long[2]);
+        ext[0]++;
+        ext[1] += size;
+
+        offerLargest(new Match(path, size));
+    }
+
+    void merge(FileSearchResult other) {
+        count += other.count;
+        totalBytes += other.totalBytes;
+        for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+            histogram[i] += other.histogram[i];
+        }
+        for (Map.Entry<String, long[]> e : other.byExtension.entrySet()) {
+            long[] ext = byExtension.computeIfAbsent(e.getKey(), k -> new long[2]);
+            ext[0] += e.getValue()[0];
+            ext[1] += e.getValue()[1];
+        }
+        for (Match match : other.largest) {
+            offerLargest(match);
+        }
+    }
+
+    private void offerLargest(Match match) {
+        if (topN <= 0) return;
+        if (largest.size() < topN) {
+            largest.add(match);
+        } else if (largest.peek().size < match.size) {
+            largest.poll();
+            largest.add(match);
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * N найбільших файлів, від найбільшого до найменшого.
+     */
+    public List<Match> getLargest() {
+        List<Match> result = new ArrayList<>(largest);
+        result.sort(Comparator.comparingLong((Match m) -> m.size).reversed());
+        return result;
+    }
+
+    /**
+     * Розширення -> {кількість файлів, сумарний розмір}, відсортовано за розміром.
+     */
+    public Map<String, long[]> getByExtension() {
+        Map<String, long[]> sorted = new LinkedHashMap<>();
+        byExtension.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue()[1], a.getValue()[1]))
+                .forEach(e -> sorted.put(e.getKey(), e.getValue().clone()));
+        return sorted;
+    }
+
+    public long[] getHistogram() {
+        return histogram.clone();
+    }
+
+    static int bucketOf(long size) {
+        return size <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(size);
+    }
+
+    static String extensionOf(Path path) {
+        Path fileName = path.getFileName();
+        String name = fileName == null ? "" : fileName.toString();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 && dot < name.length() - 1 ? name.substring(dot + 1).toLowerCase(Locale.ROOT) : "(без розширення)";
+    }
+
+    static class Match {
+        final Path path;
+        final long size;
+
+        Match(Path path, long size) {
+            this.path = path;
+            this.size = size;
+        }
+
+        @Override
+        public String toString() {
+            return size + " байт - " + path;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Рекурсивний пошук файлів більших за sizeThreshold з розширеним результатом (FileSearchResult).
+ * Обхід такий самий, як у NioFileCounterTask (DirectoryStream + один readAttributes на елемент,
+ * посилання не розкриваються), але кожен знайдений файл одразу передається у FileMatchSink.
+ * Якщо задано ліміт, пошук зупиняється після limit знайдених файлів: нові підзадачі
+ * не створюються, а вже запущені припиняють читати свої директорії.
+ */
+class FileSearchTask extends RecursiveTask<FileSearchResult> {
+    public static final long NO_LIMIT = Long.MAX_VALUE;
+
+    private final Path directory;
+    private final long sizeThreshold;
+    private final int topN;
+    private final FileMatchSink sink;
+    // Спільний на все дерево задач лічильник "квот" на знайдені файли
+    private final AtomicLong remaining;
+
+    public FileSearchTask(Path directory, long sizeThreshold, int topN, FileMatchSink sink, long limit) {
+        this(directory, sizeThreshold, topN, sink, new AtomicLong(limit));
+    }
+
+    private FileSearchTask(Path directory, long sizeThreshold, int topN, FileMatchSink sink, AtomicLong remaining) {
+        this.directory = directory;
+        this.sizeThreshold = sizeThreshold;
+        this.topN = topN;
+        this.sink = sink;
+        this.remaining = remaining;
+    }
+
+    @Override
+    protected FileSearchResult compute() {
+        FileSearchResult result = new FileSearchResult(topN);
+        List<FileSearchTask> subTasks = new ArrayList<>();
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path entry : stream) {
+                if (remaining.get() <= 0) break; // ліміт вичерпано іншими задачами
+
+                BasicFileAttributes attrs;
+                try {
+                    attrs = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                } catch (IOException e) {
+                    continue;
+                }
+
+                if (attrs.isDirectory()) {
+                    FileSearchTask subTask = new FileSearchTask(entry, sizeThreshold, topN, sink, remaining);
+                    subTask.fork();
+                    subTasks.add(subTask);
+                } else if (attrs.isRegularFile() && attrs.size() > sizeThreshold) {
+                    if (!tryClaim()) break;
+                    result.add(entry, attrs.size());
+                    sink.onMatch(entry, attrs.size());
+                }
+            }
+        } catch (IOException | DirectoryIteratorException e) {
+            // Немає доступу до директорії - пропускаємо її
+        }
+
+        for (FileSearchTask subTask : subTasks) {
+            result.merge(subTask.join());
+        }
+        return result;
+    }
+
+    // Забирає одну квоту; false, якщо ліміт уже досягнуто
+    private boolean tryClaim() {
+        if (remaining.get() == NO_LIMIT) return true; // без ліміту лічильник не чіпаємо
+        return remaining.getAndDecrement() > 0;
+    }
+}
@@ -0,0 +1,270 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Фоновий режим пошуку файлів: одне початкове сканування ForkJoin (FileIndex.scan),
+ * після чого дерево підтримується в актуальному стані за подіями WatchService.
+ * Для кожної директорії ведуться кількість і сумарний розмір її файлів, а всі розміри
+ * зберігаються у SizeStatsTree, тому запит за будь-яким порогом коштує O(log n) без обходу диска.
+ * Події обробляє один фоновий потік, запити можна виконувати з будь-якого потоку.
+ * Кожна директорія реєструється у WatchService до того, як її прочитано, тому файл, створений
+ * після читання, завжди дає подію. Повне сканування (start, resync) йде без блокування -
+ * під writeLock лише застосовується готовий результат, і запити не чекають на диск.
+ */
+class FileWatchDaemon implements AutoCloseable {
+
+    private final Path root;
+    private final ForkJoinPool pool;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> watchedDirs = new ConcurrentHashMap<>();
+
+    // Стан дерева; змінюється лише потоком подій під writeLock
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Long> fileSizes = new TreeMap<>(); // абсолютний шлях -> розмір
+    private final Map<Path, long[]> dirStats = new HashMap<>();      // директорія -> {кількість, байти}
+    private final SizeStatsTree sizes = new SizeStatsTree();
+    private long eventsProcessed;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public FileWatchDaemon(Path root, ForkJoinPool pool) throws IOException {
+        this.root = root.toAbsolutePath().normalize();
+        this.pool = pool;
+        this.watchService = this.root.getFileSystem().newWatchService();
+    }
+
+    /**
+     * Виконує початкове сканування і запускає фоновий потік обробки подій.
+     */
+    public void start() {
+        FileIndex index = FileIndex.scan(pool, root, this::register);
+        lock.writeLock().lock();
+        try {
+            index.forEachFile(this::putFile);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        running = true;
+        worker = new Thread(this::eventLoop, "file-watch-daemon");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    // --- Запити ---
+
+    public long countLargerThan(long sizeThreshold) {
+        lock.readLock().lock();
+        try {
+            return sizes.countGreaterThan(sizeThreshold);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long bytesLargerThan(long sizeThreshold) {
+        lock.readLock().lock();
+        try {
+            return sizes.bytesGreaterThan(sizeThreshold);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getFileCount() {
+        lock.readLock().lock();
+        try {
+            return sizes.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Кількість і сумарний розмір файлів безпосередньо у директорії dir: {кількість, байти}.
+     */
+    public long[] getDirectoryStats(Path dir) {
+        lock.readLock().lock();
+        try {
+            long[] stats = dirStats.get(dir.toAbsolutePath().normalize());
+            return stats == null ? new long[2] : stats.clone();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getWatchedDirectoryCount() {
+        return watchedDirs.size();
+    }
+
+    public long getEventsProcessed() {
+        lock.readLock().lock();
+        try {
+            return eventsProcessed;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        watchService.close(); // take() у потоці подій завершиться ClosedWatchServiceException
+        if (worker != null) {
+            try {
+                worker.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // --- Обробка подій ---
+
+    private void eventLoop() {
+        while (running) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            Path dir = watchedDirs.get(key);
+            List<WatchEvent<?>> events = key.pollEvents();
+
+            boolean overflow = false;
+            if (dir != null) {
+                lock.writeLock().lock();
+                try {
+                    for (WatchEvent<?> event : events) {
+                        eventsProcessed++;
+                        if (event.kind() == OVERFLOW) {
+                            overflow = true; // частину подій втрачено
+                            continue;
+                        }
+                        Path child = dir.resolve((Path) event.context());
+                        if (event.kind() == ENTRY_DELETE) {
+                            removeSubtree(child);
+                        } else {
+                            refreshEntry(child, event.kind() == ENTRY_CREATE);
+                        }
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+            if (overflow) {
+                resync();
+            }
+
+            // Ключ став недійсним - директорію видалено
+            if (!key.reset()) {
+                watchedDirs.remove(key);
+            }
+        }
+    }
+
+    private void refreshEntry(Path child, boolean created) {
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(child, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (IOException e) {
+            removeSubtree(child); // встигли видалити до обробки події
+            return;
+        }
+        if (attrs.isDirectory()) {
+            if (created) {
+                // Нова директорія могла бути заповнена ще до реєстрації - читаємо її вже зареєстрованою
+                FileIndex.scan(pool, child, this::register).forEachFile(this::putFile);
+            }
+        } else if (attrs.isRegularFile()) {
+            putFile(child, attrs.size());
+        }
+    }
+
+    // Після переповнення черги подій стан може бути неповним - пересканування йде без блокування,
+    // а під writeLock застосовується лише різниця зі старим станом
+    private void resync() {
+        Map<String, Long> scanned = new HashMap<>();
+        FileIndex.scan(pool, root, this::register).forEachFile((file, size) -> scanned.put(file.toString(), size));
+        lock.writeLock().lock();
+        try {
+            for (String path : new ArrayList<>(fileSizes.keySet())) {
+                if (!scanned.containsKey(path)) {
+                    removeFile(path);
+                }
+            }
+            scanned.forEach((path, size) -> {
+                if (!size.equals(fileSizes.get(path))) {
+                    putFile(Paths.get(path), size);
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void register(Path dir) {
+        try {
+            // Повторна реєстрація тієї самої директорії повертає той самий ключ
+            watchedDirs.put(dir.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), dir);
+        } catch (IOException | ClosedWatchServiceException e) {
+            // Директорію видалено або сервіс закрито - нічого реєструвати
+        }
+    }
+
+    private void removeSubtree(Path path) {
+        String key = path.toString();
+        if (removeFile(key)) {
+            return; // це був звичайний файл
+        }
+        // Усі файли "path/..." лежать у TreeMap поспіль: від "path/" до "path0" ('0' йде одразу після '/')
+        String from = key + File.separatorChar;
+        String to = key + (char) (File.separatorChar + 1);
+        for (String nested : new ArrayList<>(fileSizes.subMap(from, true, to, false).keySet())) {
+            removeFile(nested);
+        }
+        watchedDirs.entrySet().removeIf(e -> {
+            if (e.getValue().startsWith(path)) {
+                e.getKey().cancel();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private void putFile(Path file, long size) {
+        Long old = fileSizes.put(file.toString(), size);
+        long[] stats = dirStats.computeIfAbsent(file.getParent(), k -> new long[2]);
+        if (old != null) {
+            sizes.remove(old);
+            stats[0]--;
+            stats[1] -= old;
+        }
+        sizes.add(size);
+        stats[0]++;
+        stats[1] += size;
+    }
+
+    private boolean removeFile(String path) {
+        Long old = fileSizes.remove(path);
+        if (old == null) return false;
+        sizes.remove(old);
+        Path parent = Paths.get(path).getParent();
+        long[] stats = dirStats.get(parent);
+        if (stats != null) {
+            stats[0]--;
+            stats[1] -= old;
+            if (stats[0] == 0) dirStats.remove(parent);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,25 @@
+/**
+ * Матриця у плоскому неперервному масиві (row-major): елемент [i][j] лежить за індексом i * cols + j.
+ */
+class FlatMatrix {
+    final int[] data;
+    final int rows;
+    final int cols;
+
+    FlatMatrix(int rows, int cols) {
+        if ((long) rows * cols > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Матриця " + rows + "x" + cols + " не вміщується в один масив");
+        }
+        this.data = new int[rows * cols];
+        this.rows = rows;
+        this.cols = cols;
+    }
+
+    static FlatMatrix from(int[][] matrix, int cols) {
+        FlatMatrix flat = new FlatMatrix(matrix.length, cols);
+        for (int i = 0; i < matrix.length; i++) {
+            System.arraycopy(matrix[i], 0, flat.data, i * cols, cols);
+        }
+        return flat;
+    }
+}
@@ -1,13 +1,32 @@
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.*;
 
 public class MatrixSumBenchmark {
 
-    // Поріг для ForkJoin (коли зупинити поділ задачі)
-    private static final int THRESHOLD = 10;
+    // Поріг для ForkJoin (коли зупинити поділ задачі) - у КОМІРКАХ (рядки x стовпці діапазону),
+    // а не у стовпцях: 10 стовпців по 100 000 рядків і 10 стовпців по 5 рядків - зовсім різна робота
+    static final long DEFAULT_WORK_THRESHOLD = 1 << 15;
+
+    // Якщо у черзі потоку вже більше за стільки зайвих задач, інші потоки мають що красти
+    // і подальший поділ лише додає накладні витрати
+    private static final int MAX_SURPLUS_TASKS = 3;
+    // Без відсічки за надлишком задач: поділ залежить лише від workThreshold
+    static final int NO_SURPLUS_CUTOFF = Integer.MAX_VALUE;
+
+    // Пороги для автоматичного підбору (--sweep) та кількість вимірювань на кожен поріг
+    private static final int SWEEP_WARMUP_RUNS = 3;
+    private static final int SWEEP_MEASURED_RUNS = 7;
 
     public static void main(String[] args) {
         Scanner scanner = new Scanner(System.in);
+        // --sweep: додатково підібрати поріг поділу для Work Stealing на введеній матриці
+        boolean sweep = Arrays.asList(args).contains("--sweep");
+        // --metrics=ФАЙЛ: час кожного підходу і стан пулів у ФАЙЛ (JSON для *.json, інакше Prometheus)
+        String metricsFile = null;
+        for (String arg : args) {
+            if (arg.startsWith("--metrics=")) metricsFile = arg.substring("--metrics=".length());
+        }
 
         // 1. Введення даних та валідація
         System.out.println("=== Генерація матриці ===");
@@ -29,18 +48,24 @@ public class MatrixSumBenchmark {
             System.out.println("Матриця занадто велика для виводу.");
         }
 
+        // Обсяг даних, які читає кожен підхід (для оцінки пропускної здатності пам'яті)
+        long matrixBytes = (long) rows * cols * Integer.BYTES;
+
+        Metrics metrics = Metrics.global();
+        metrics.counter("matrix.bytes").add(matrixBytes);
+        Metrics.Exporter exporter = metricsFile == null ? null : metrics.exportTo(Paths.get(metricsFile), 1000);
+
         // 3. Запуск Work Stealing (Fork/Join)
         System.out.println("\n--- Підхід Work Stealing (Fork/Join) ---");
         long startStealing = System.nanoTime();
 
         ForkJoinPool fjPool = new ForkJoinPool();
-        long[] resultsStealing = new long[cols];
-        // Запускаємо рекурсивну задачу, яка заповнює масив resultsStealing
-        fjPool.invoke(new ColumnSumRecursiveAction(matrix, 0, cols, resultsStealing));
+        metrics.registerExecutor("forkjoin", fjPool);
+        long[] resultsStealing = sumColumnsStealing(fjPool, matrix, cols);
 
         long endStealing = System.nanoTime();
         printResults(resultsStealing);
-        System.out.printf("Час виконання (Work Stealing): %.4f мс%n", (endStealing - startStealing) / 1_000_000.0);
+        printTime("Work Stealing", endStealing - startStealing, matrixBytes);
 
 
         // 4. Запуск Work Dealing (ExecutorService)
@@ -50,10 +75,120 @@ public class MatrixSumBenchmark {
         // Кількість потоків = кількість ядер
         int cores = Runtime.getRuntime().availableProcessors();
         ExecutorService executor = Executors.newFixedThreadPool(cores);
-        long[] resultsDealing = new long[cols];
+        metrics.registerExecutor("dealing", executor);
+        long[] resultsDealing = sumColumnsDealing(executor, matrix, cols);
+        executor.shutdown();
+
+        long endDealing = System.nanoTime();
+        printResults(resultsDealing);
+        printTime("Work Dealing", endDealing - startDealing, matrixBytes);
+
+
+        // 5. Row-major ядро: блоки рядків + часткові суми на потік
+        System.out.println("\n--- Row-major блоки рядків (Fork/Join, int[][]) ---");
+        long startRowBlocks = System.nanoTime();
+        long[] resultsRowBlocks = RowBlockColumnSum.sumColumns(fjPool, matrix, cols);
+        long endRowBlocks = System.nanoTime();
+        printResults(resultsRowBlocks);
+        printTime("Row-major, int[][]", endRowBlocks - startRowBlocks, matrixBytes);
+        printMatch(resultsStealing, resultsRowBlocks);
+
+
+        // 6. Те саме ядро на плоскому неперервному масиві
+        System.out.println("\n--- Row-major блоки рядків (Fork/Join, плоский int[]) ---");
+        FlatMatrix flatMatrix = FlatMatrix.from(matrix, cols); // перетворення не входить у вимір часу
+        long startFlat = System.nanoTime();
+        long[] resultsFlat = RowBlockColumnSum.sumColumns(fjPool, flatMatrix);
+        long endFlat = System.nanoTime();
+        printResults(resultsFlat);
+        printTime("Row-major, плоский int[]", endFlat - startFlat, matrixBytes);
+        printMatch(resultsStealing, resultsFlat);
+
+
+        // 7. SIMD-ядро (Vector API) з fallback на скалярний цикл
+        boolean vectorApi = RowBlockColumnSum.isVectorApiAvailable();
+        System.out.println("\n--- SIMD (" + (vectorApi ? VectorColumnSum.describe()
+                : "Vector API недоступний, скалярний fallback; запуск з --add-modules jdk.incubator.vector") + ") ---");
+        long startSimd = System.nanoTime();
+        long[] resultsSimd = RowBlockColumnSum.sumColumnsSimd(fjPool, flatMatrix);
+        long endSimd = System.nanoTime();
+        printResults(resultsSimd);
+        printTime("SIMD, плоский int[]", endSimd - startSimd, matrixBytes);
+        printMatch(resultsStealing, resultsSimd);
+
+        if (sweep) {
+            System.out.println("\n--- Підбір порогу поділу для Work Stealing ---");
+            sweepThreshold(fjPool, matrix, cols);
+        }
+
+        fjPool.shutdown();
+        if (exporter != null) {
+            exporter.close();
+        }
+    }
+
+    // --- Допоміжні класи та методи ---
+
+    // Work Stealing: рекурсивна задача заповнює масив результатів
+    static long[] sumColumnsStealing(ForkJoinPool pool, int[][] matrix, int cols) {
+        return sumColumnsStealing(pool, matrix, cols, DEFAULT_WORK_THRESHOLD);
+    }
+
+    static long[] sumColumnsStealing(ForkJoinPool pool, int[][] matrix, int cols, long workThreshold) {
+        return sumColumnsStealing(pool, matrix, cols, workThreshold, MAX_SURPLUS_TASKS);
+    }
+
+    static long[] sumColumnsStealing(ForkJoinPool pool, int[][] matrix, int cols, long workThreshold, int maxSurplusTasks) {
+        long[] results = new long[cols];
+        pool.invoke(new ColumnSumRecursiveAction(matrix, 0, cols, results, workThreshold, maxSurplusTasks));
+        return results;
+    }
+
+    /**
+     * Прогін Work Stealing з порогами від 2^10 до rows * cols комірок (крок x4).
+     * Для кожного порогу - прогрів і медіана вимірювань; повертає найкращий поріг.
+     * Відсічку за getSurplusQueuedTaskCount() вимкнено: вона залежить від стану черг під час виконання
+     * і інакше прогін міряв би її, а не сам поріг.
+     */
+    static long sweepThreshold(ForkJoinPool pool, int[][] matrix, int cols) {
+        long totalCells = Math.max((long) matrix.length * cols, 1);
+        long bestThreshold = DEFAULT_WORK_THRESHOLD;
+        double bestTime = Double.MAX_VALUE;
+
+        System.out.printf("%-16s %-12s%n", "Поріг (комірок)", "Медіана, мс");
+        for (long threshold = 1 << 10; ; threshold *= 4) {
+            long current = Math.min(threshold, totalCells);
+            for (int i = 0; i < SWEEP_WARMUP_RUNS; i++) {
+                sumColumnsStealing(pool, matrix, cols, current, NO_SURPLUS_CUTOFF);
+            }
+            double[] times = new double[SWEEP_MEASURED_RUNS];
+            for (int i = 0; i < SWEEP_MEASURED_RUNS; i++) {
+                long start = System.nanoTime();
+                sumColumnsStealing(pool, matrix, cols, current, NO_SURPLUS_CUTOFF);
+                long elapsed = System.nanoTime() - start;
+                Metrics.global().record("matrix.sweep." + current, elapsed);
+                times[i] = elapsed / 1_000_000.0;
+            }
+            Arrays.sort(times);
+            double median = times[SWEEP_MEASURED_RUNS / 2];
+            System.out.printf("%-16d %-12.4f%n", current, median);
+
+            if (median < bestTime) {
+                bestTime = median;
+                bestThreshold = current;
+            }
+            if (current >= totalCells) break;
+        }
+        System.out.printf("Оптимальний поріг: %d комірок (%.4f мс)%n", bestThreshold, bestTime);
+        return bestThreshold;
+    }
+
+    // Work Dealing: кожен стовпець - окрема задача (Work Dealing у простому вигляді)
+    static long[] sumColumnsDealing(ExecutorService executor, int[][] matrix, int cols) {
+        long[] results = new long[cols];
         List<Future<?>> futures = new ArrayList<>();
 
-        // Роздаємо задачі: кожен стовпець - окрема задача (Work Dealing у простому вигляді)
+        // Роздаємо задачі
         for (int j = 0; j < cols; j++) {
             final int colIndex = j;
             futures.add(executor.submit(() -> {
@@ -61,7 +196,7 @@ public class MatrixSumBenchmark {
                 for (int i = 0; i < matrix.length; i++) {
                     sum += matrix[i][colIndex];
                 }
-                resultsDealing[colIndex] = sum;
+                results[colIndex] = sum;
             }));
         }
 
@@ -73,33 +208,39 @@ public class MatrixSumBenchmark {
                 e.printStackTrace();
             }
         }
-        executor.shutdown();
-
-        long endDealing = System.nanoTime();
-        printResults(resultsDealing);
-        System.out.printf("Час виконання (Work Dealing): %.4f мс%n", (endDealing - startDealing) / 1_000_000.0);
+        return results;
     }
 
-    // --- Допоміжні класи та методи ---
-
     // Клас для Fork/Join (Work Stealing)
     static class ColumnSumRecursiveAction extends RecursiveAction {
         private final int[][] matrix;
         private final int startCol;
         private final int endCol;
         private final long[] results;
+        private final long workThreshold;
+        private final int maxSurplusTasks;
 
         public ColumnSumRecursiveAction(int[][] matrix, int startCol, int endCol, long[] results) {
+            this(matrix, startCol, endCol, results, DEFAULT_WORK_THRESHOLD, MAX_SURPLUS_TASKS);
+        }
+
+        public ColumnSumRecursiveAction(int[][] matrix, int startCol, int endCol, long[] results,
+                                        long workThreshold, int maxSurplusTasks) {
             this.matrix = matrix;
             this.startCol = startCol;
             this.endCol = endCol;
             this.results = results;
+            this.workThreshold = workThreshold;
+            this.maxSurplusTasks = maxSurplusTasks;
         }
 
         @Override
         protected void compute() {
-            // Якщо діапазон малий - обчислюємо прямо
-            if (endCol - startCol <= THRESHOLD) {
+            // Оцінка роботи: кількість комірок у діапазоні стовпців
+            long work = (long) matrix.length * (endCol - startCol);
+
+            // Якщо роботи мало, або пул і так має достатньо задач для крадіжки - обчислюємо прямо
+            if (endCol - startCol <= 1 || work <= workThreshold || getSurplusQueuedTaskCount() > maxSurplusTasks) {
                 for (int j = startCol; j < endCol; j++) {
                     long sum = 0;
                     for (int i = 0; i < matrix.length; i++) {
@@ -111,14 +252,14 @@ public class MatrixSumBenchmark {
                 // Інакше ділимо навпіл
                 int mid = startCol + (endCol - startCol) / 2;
                 invokeAll(
-                        new ColumnSumRecursiveAction(matrix, startCol, mid, results),
-                        new ColumnSumRecursiveAction(matrix, mid, endCol, results)
+                        new ColumnSumRecursiveAction(matrix, startCol, mid, results, workThreshold, maxSurplusTasks),
+                        new ColumnSumRecursiveAction(matrix, mid, endCol, results, workThreshold, maxSurplusTasks)
                 );
             }
         }
     }
 
-    private static int[][] generateMatrix(int rows, int cols, int min, int max) {
+    static int[][] generateMatrix(int rows, int cols, int min, int max) {
         Random random = new Random();
         int[][] matrix = new int[rows][cols];
         for (int i = 0; i < rows; i++) {
@@ -144,6 +285,20 @@ public class MatrixSumBenchmark {
         }
     }
 
+    // Час у мілісекундах та пропускна здатність у ГБ/с (скільки байтів матриці прочитано за секунду);
+    // той самий час записується у гістограму "matrix.<підхід>"
+    private static void printTime(String approach, long nanos, long bytes) {
+        Metrics.global().record("matrix." + approach, nanos);
+        double gbPerSecond = nanos > 0 ? bytes / (double) nanos : 0; // байт/нс == ГБ/с
+        System.out.printf("Час виконання (%s): %.4f мс (%.2f ГБ/с)%n", approach, nanos / 1_000_000.0, gbPerSecond);
+    }
+
+    private static void printMatch(long[] expected, long[] actual) {
+        System.out.println(Arrays.equals(expected, actual)
+                ? "Результати збігаються з Work Stealing."
+                : "УВАГА: результати відрізняються від Work Stealing!");
+    }
+
     private static int getValidInput(Scanner s, String prompt) {
         int val;
         while (true) {
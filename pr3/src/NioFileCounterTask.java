@@ -0,0 +1,95 @@
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * NIO-версія FileCounterTask.
+ * Замість File.listFiles() + isDirectory() + length() (масив File[] і щонайменше два stat на файл)
+ * директорія читається лінивим DirectoryStream, а всі потрібні метадані елемента
+ * беруться одним викликом Files.readAttributes(BasicFileAttributes).
+ * Символьні посилання за замовчуванням не розкриваються; з followLinks = true
+ * відвідані директорії запам'ятовуються за fileKey (пристрій + inode), тому цикли посилань не зациклюють обхід.
+ */
+class NioFileCounterTask extends RecursiveTask<Long> {
+    private static final LinkOption[] NO_FOLLOW = {LinkOption.NOFOLLOW_LINKS};
+    private static final LinkOption[] FOLLOW = {};
+
+    private final Path directory;
+    private final long sizeThreshold;
+    private final boolean followLinks;
+    private final Set<Object> visited;
+
+    public NioFileCounterTask(Path directory, long sizeThreshold) {
+        this(directory, sizeThreshold, false);
+    }
+
+    public NioFileCounterTask(Path directory, long sizeThreshold, boolean followLinks) {
+        this(directory, sizeThreshold, followLinks, followLinks ? rootVisitedSet(directory) : null);
+    }
+
+    private NioFileCounterTask(Path directory, long sizeThreshold, boolean followLinks, Set<Object> visited) {
+        this.directory = directory;
+        this.sizeThreshold = sizeThreshold;
+        this.followLinks = followLinks;
+        this.visited = visited;
+    }
+
+    @Override
+    protected Long compute() {
+        long count = 0;
+        List<NioFileCounterTask> subTasks = new ArrayList<>();
+        LinkOption[] linkOptions = followLinks ? FOLLOW : NO_FOLLOW;
+
+        // DirectoryStream віддає елементи по одному, без проміжного масиву
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path entry : stream) {
+                BasicFileAttributes attrs;
+                try {
+                    attrs = Files.readAttributes(entry, BasicFileAttributes.class, linkOptions);
+                } catch (IOException e) {
+                    continue; // файл видалено під час обходу або бите посилання
+                }
+
+                if (attrs.isDirectory()) {
+                    if (followLinks && !markVisited(attrs)) {
+                        continue; // цю директорію вже обходили (цикл посилань)
+                    }
+                    NioFileCounterTask subTask = new NioFileCounterTask(entry, sizeThreshold, followLinks, visited);
+                    subTask.fork();
+                    subTasks.add(subTask);
+                } else if (attrs.isRegularFile() && attrs.size() > sizeThreshold) {
+                    count++;
+                }
+            }
+        } catch (IOException | DirectoryIteratorException e) {
+            // Немає доступу до директорії - пропускаємо її, як і listFiles() == null
+        }
+
+        for (NioFileCounterTask subTask : subTasks) {
+            count += subTask.join();
+        }
+        return count;
+    }
+
+    private boolean markVisited(BasicFileAttributes attrs) {
+        Object key = attrs.fileKey();
+        // Якщо файлова система не надає fileKey, захиститись від циклу неможливо - йдемо далі
+        return key == null || visited.add(key);
+    }
+
+    private static Set<Object> rootVisitedSet(Path root) {
+        Set<Object> visited = ConcurrentHashMap.newKeySet();
+        try {
+            Object key = Files.readAttributes(root, BasicFileAttributes.class).fileKey();
+            if (key != null) visited.add(key);
+        } catch (IOException e) {
+            // корінь недоступний - compute() просто нічого не знайде
+        }
+        return visited;
+    }
+}
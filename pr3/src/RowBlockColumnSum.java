@@ -0,0 +1,169 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Cache-friendly обчислення сум стовпців.
+ * Замість обходу кожного стовпця зверху вниз (стрибок між рядками + cache miss на кожен елемент)
+ * робота ділиться на блоки РЯДКІВ, і кожен рядок читається послідовно.
+ * Кожен потік пулу накопичує суми в одному long[cols] на весь виклик (слот за getPoolIndex()),
+ * і ці масиви складаються один раз наприкінці: злиття коштує O(cols * потоків), а не O(cols * блоків).
+ * Буфери належать виклику, тож у потоках пулу після нього нічого не лишається.
+ */
+public class RowBlockColumnSum {
+
+    // Мінімальна кількість елементів у блоці, нижче якої блок рахується без поділу
+    static final int DEFAULT_BLOCK_CELLS = 1 << 16;
+
+    /**
+     * Суми стовпців для звичайної (jagged) матриці int[][].
+     */
+    public static long[] sumColumns(ForkJoinPool pool, int[][] matrix, int cols) {
+        for (int i = 0; i < matrix.length; i++) {
+            if (matrix[i].length != cols) {
+                throw new IllegalArgumentException("Рядок " + i + " має " + matrix[i].length + " елементів замість " + cols);
+            }
+        }
+        Partials partials = new Partials(pool, cols);
+        pool.invoke(new RowBlockAction(matrix, null, cols, 0, matrix.length, false, partials));
+        return partials.reduce();
+    }
+
+    /**
+     * Суми стовпців для матриці у плоскому неперервному масиві.
+     */
+    public static long[] sumColumns(ForkJoinPool pool, FlatMatrix matrix) {
+        return sumFlat(pool, matrix, false);
+    }
+
+    /**
+     * Те саме, що sumColumns(pool, FlatMatrix), але листові блоки рахуються SIMD-ядром VectorColumnSum.
+     * Якщо модуль jdk.incubator.vector не підключено, використовується скалярний цикл.
+     */
+    public static long[] sumColumnsSimd(ForkJoinPool pool, FlatMatrix matrix) {
+        return sumFlat(pool, matrix, isVectorApiAvailable());
+    }
+
+    private static long[] sumFlat(ForkJoinPool pool, FlatMatrix matrix, boolean simd) {
+        Partials partials = new Partials(pool, matrix.cols);
+        pool.invoke(new RowBlockAction(null, matrix.data, matrix.cols, 0, matrix.rows, simd, partials));
+        return partials.reduce();
+    }
+
+    /**
+     * Чи підключено модуль Vector API (--add-modules jdk.incubator.vector).
+     */
+    public static boolean isVectorApiAvailable() {
+        return ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+    }
+
+    /**
+     * Часткові суми одного виклику: по масиву на потік. Потік виконує лише один листовий блок одночасно,
+     * тому свій масив він змінює без синхронізації; invoke() повертається після join усіх блоків,
+     * що дає happens-before для reduce().
+     */
+    static final class Partials {
+        private final ForkJoinPool pool;
+        private final int cols;
+        // Слот 0 - потік, що викликав invoke() (він теж може виконувати блоки), далі - getPoolIndex() + 1.
+        // Компенсаційні потоки можуть мати індекс >= parallelism, тому масив росте за потреби; захищено this
+        private long[][] slots;
+
+        Partials(ForkJoinPool pool, int cols) {
+            this.pool = pool;
+            this.cols = cols;
+            this.slots = new long[pool.getParallelism() + 1][];
+        }
+
+        // Виклик раз на листовий блок, тож монітор тут не вузьке місце
+        synchronized long[] forCurrentThread() {
+            Thread thread = Thread.currentThread();
+            int slot = 0;
+            if (thread instanceof ForkJoinWorkerThread && ((ForkJoinWorkerThread) thread).getPool() == pool) {
+                slot = ((ForkJoinWorkerThread) thread).getPoolIndex() + 1;
+            }
+            if (slot >= slots.length) {
+                slots = Arrays.copyOf(slots, Math.max(slot + 1, slots.length * 2));
+            }
+            if (slots[slot] == null) {
+                slots[slot] = new long[cols];
+            }
+            return slots[slot];
+        }
+
+        synchronized long[] reduce() {
+            long[] total = new long[cols];
+            for (long[] partial : slots) {
+                if (partial == null) continue;
+                for (int j = 0; j < cols; j++) {
+                    total[j] += partial[j];
+                }
+            }
+            return total;
+        }
+    }
+
+    /**
+     * Ділить діапазон рядків навпіл, доки блок не стане достатньо малим; листовий блок додає
+     * суми своїх рядків у масив поточного потоку. Рівно одне з полів matrix / flat не дорівнює null;
+     * simd можливий лише для flat.
+     */
+    static class RowBlockAction extends RecursiveAction {
+        private final int[][] matrix;
+        private final int[] flat;
+        private final int cols;
+        private final int startRow;
+        private final int endRow;
+        private final boolean simd;
+        private final Partials partials;
+
+        RowBlockAction(int[][] matrix, int[] flat, int cols, int startRow, int endRow, boolean simd, Partials partials) {
+            this.matrix = matrix;
+            this.flat = flat;
+            this.cols = cols;
+            this.startRow = startRow;
+            this.endRow = endRow;
+            this.simd = simd;
+            this.partials = partials;
+        }
+
+        @Override
+        protected void compute() {
+            int rows = endRow - startRow;
+            if (rows <= 1 || (long) rows * cols <= DEFAULT_BLOCK_CELLS) {
+                long[] acc = partials.forCurrentThread();
+                if (simd) {
+                    VectorColumnSum.sumFlatRows(flat, cols, startRow, endRow, acc);
+                } else if (flat != null) {
+                    sumFlatRows(flat, cols, startRow, endRow, acc);
+                } else {
+                    sumRows(matrix, cols, startRow, endRow, acc);
+                }
+                return;
+            }
+            int mid = startRow + rows / 2;
+            invokeAll(new RowBlockAction(matrix, flat, cols, startRow, mid, simd, partials),
+                    new RowBlockAction(matrix, flat, cols, mid, endRow, simd, partials));
+        }
+    }
+
+    static void sumRows(int[][] matrix, int cols, int startRow, int endRow, long[] acc) {
+        for (int i = startRow; i < endRow; i++) {
+            int[] row = matrix[i]; // одне розіменування на рядок, далі - послідовне читання
+            for (int j = 0; j < cols; j++) {
+                acc[j] += row[j];
+            }
+        }
+    }
+
+    static void sumFlatRows(int[] data, int cols, int startRow, int endRow, long[] acc) {
+        // Простий лічильний цикл без розіменувань - JIT може його векторизувати
+        for (int i = startRow; i < endRow; i++) {
+            int base = i * cols;
+            for (int j = 0; j < cols; j++) {
+                acc[j] += data[base + j];
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Мультимножина розмірів файлів у вигляді декартового дерева (treap) з лічильниками у вузлах.
+ * Кожен вузол зберігає кількість і сумарний розмір свого піддерева, тому
+ * "скільки файлів / байтів більше за поріг" рахується за O(log n), як і додавання/видалення.
+ * Клас НЕ потокобезпечний.
+ */
+class SizeStatsTree {
+
+    private Node root;
+
+    public void add(long size) {
+        root = insert(root, size);
+    }
+
+    /**
+     * Видаляє одне входження size. Повертає false, якщо такого розміру не було.
+     */
+    public boolean remove(long size) {
+        if (countOf(root, size) == 0) return false;
+        root = delete(root, size);
+        return true;
+    }
+
+    public long size() {
+        return count(root);
+    }
+
+    public long totalBytes() {
+        return bytes(root);
+    }
+
+    public long countGreaterThan(long threshold) {
+        long result = 0;
+        Node node = root;
+        while (node != null) {
+            if (node.key > threshold) {
+                // Вузол і все праве піддерево більші за поріг
+                result += node.multiplicity + count(node.right);
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return result;
+    }
+
+    public long bytesGreaterThan(long threshold) {
+        long result = 0;
+        Node node = root;
+        while (node != null) {
+            if (node.key > threshold) {
+                result += node.key * node.multiplicity + bytes(node.right);
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return result;
+    }
+
+    // --- Внутрішні методи ---
+
+    private static long countOf(Node node, long key) {
+        while (node != null) {
+            if (key == node.key) return node.multiplicity;
+            node = key < node.key ? node.left : node.right;
+        }
+        return 0;
+    }
+
+    private static Node insert(Node node, long key) {
+        if (node == null) return new Node(key);
+        if (key == node.key) {
+            node.multiplicity++;
+        } else if (key < node.key) {
+            node.left = insert(node.left, key);
+            if (node.left.priority > node.priority) node = rotateRight(node);
+        } else {
+            node.right = insert(node.right, key);
+            if (node.right.priority > node.priority) node = rotateLeft(node);
+        }
+        node.update();
+        return node;
+    }
+
+    private static Node delete(Node node, long key) {
+        if (key < node.key) {
+            node.left = delete(node.left, key);
+        } else if (key > node.key) {
+            node.right = delete(node.right, key);
+        } else if (node.multiplicity > 1) {
+            node.multiplicity--;
+        } else {
+            // Опускаємо вузол донизу поворотами, доки він не стане листом
+            if (node.left == null) return node.right;
+            if (node.right == null) return node.left;
+            if (node.left.priority > node.right.priority) {
+                node = rotateRight(node);
+                node.right = delete(node.right, key);
+            } else {
+                node = rotateLeft(node);
+                node.left = delete(node.left, key);
+            }
+        }
+        node.update();
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        node.update();
+        left.update();
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        node.update();
+        right.update();
+        return right;
+    }
+
+    private static long count(Node node) {
+        return node == null ? 0 : node.subtreeCount;
+    }
+
+    private static long bytes(Node node) {
+        return node == null ? 0 : node.subtreeBytes;
+    }
+
+    private static class Node {
+        final long key;
+        final int priority = ThreadLocalRandom.current().nextInt();
+        long multiplicity = 1;
+        long subtreeCount;
+        long subtreeBytes;
+        Node left;
+        Node right;
+
+        Node(long key) {
+            this.key = key;
+            update();
+        }
+
+        void update() {
+            subtreeCount = multiplicity + count(left) + count(right);
+            subtreeBytes = key * multiplicity + bytes(left) + bytes(right);
+        }
+    }
+}
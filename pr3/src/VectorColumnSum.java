@@ -0,0 +1,61 @@
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD-ядро для сум стовпців на Vector API (jdk.incubator.vector).
+ * Вектор int розширюється до вектора long (I2L) з тією ж кількістю лінів і додається
+ * до акумулятора рядка. Клас завантажується лише тоді, коли модуль доступний
+ * (див. RowBlockColumnSum.isVectorApiAvailable()), інакше використовується скалярний цикл.
+ * Скалярний цикл береться і тоді, коли для вектора int потрібної ширини немає форми
+ * (бажаний вектор long має 64 біти, а 32-бітних векторів не існує).
+ * Запуск: java --add-modules jdk.incubator.vector ...
+ */
+final class VectorColumnSum {
+
+    private static final VectorSpecies<Long> LONG_SPECIES = LongVector.SPECIES_PREFERRED;
+    // Вектор int удвічі коротший за бітами, тому має стільки ж лінів, скільки й LONG_SPECIES; null - такої форми немає
+    private static final VectorSpecies<Integer> INT_SPECIES = intSpecies();
+
+    private VectorColumnSum() {
+    }
+
+    private static VectorSpecies<Integer> intSpecies() {
+        try {
+            return VectorSpecies.of(int.class, VectorShape.forBitSize(LONG_SPECIES.vectorBitSize() / 2));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    static void sumFlatRows(int[] data, int cols, int startRow, int endRow, long[] acc) {
+        if (INT_SPECIES == null) {
+            RowBlockColumnSum.sumFlatRows(data, cols, startRow, endRow, acc);
+            return;
+        }
+        int lanes = INT_SPECIES.length();
+        int upper = INT_SPECIES.loopBound(cols);
+        for (int i = startRow; i < endRow; i++) {
+            int base = i * cols;
+            int j = 0;
+            for (; j < upper; j += lanes) {
+                IntVector values = IntVector.fromArray(INT_SPECIES, data, base + j);
+                LongVector widened = (LongVector) values.convertShape(VectorOperators.I2L, LONG_SPECIES, 0);
+                LongVector.fromArray(LONG_SPECIES, acc, j).add(widened).intoArray(acc, j);
+            }
+            // Хвіст рядка, що не вміщується у повний вектор
+            for (; j < cols; j++) {
+                acc[j] += data[base + j];
+            }
+        }
+    }
+
+    static String describe() {
+        if (INT_SPECIES == null) {
+            return "Vector API: немає форми int для " + LONG_SPECIES + ", скалярний цикл";
+        }
+        return "Vector API: " + INT_SPECIES + " -> " + LONG_SPECIES;
+    }
+}
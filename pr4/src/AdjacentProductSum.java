@@ -0,0 +1,149 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Сума добутків сусідніх елементів sum(s[i] * s[i+1]) для великих масивів (Variant2).
+ *
+ * Пари [0, n-1) діляться на блоки фіксованого розміру; блок [from, to) читає s[from..to], тобто сусідні блоки
+ * перекриваються на один елемент. Кожен блок підсумовується з компенсацією похибки (TwoSum, варіант Кехена-Ноймаєра)
+ * у чотири незалежні "смуги" - без розгалужень і залежностей між смугами, тож цикл добре конвеєризується і
+ * векторизується JIT. Часткові суми блоків об'єднуються попарно деревом, форма якого залежить лише від кількості
+ * блоків. Тому результат побітово однаковий для будь-якої кількості потоків (і для compute, і для computeSequential)
+ * при тому самому blockSize.
+ */
+class AdjacentProductSum {
+
+    public static final int DEFAULT_BLOCK_SIZE = 1 << 16;
+
+    private AdjacentProductSum() {
+    }
+
+    public static double compute(ForkJoinPool pool, double[] sequence) {
+        return compute(pool, sequence, DEFAULT_BLOCK_SIZE);
+    }
+
+    public static double compute(ForkJoinPool pool, double[] sequence, int blockSize) {
+        int pairs = sequence.length - 1;
+        if (pairs <= 0) return 0;
+        int blocks = (pairs + blockSize - 1) / blockSize;
+        return pool.invoke(new BlockTask(sequence, blockSize, 0, blocks)).value();
+    }
+
+    /**
+     * Те саме дерево блоків в одному потоці - результат збігається з compute() до біта.
+     */
+    public static double computeSequential(double[] sequence, int blockSize) {
+        int pairs = sequence.length - 1;
+        if (pairs <= 0) return 0;
+        int blocks = (pairs + blockSize - 1) / blockSize;
+        return reduce(sequence, blockSize, 0, blocks).value();
+    }
+
+    /**
+     * Початковий алгоритм Variant2: один послідовний цикл без компенсації.
+     */
+    public static double naive(double[] sequence) {
+        double sum = 0;
+        for (int i = 0; i < sequence.length - 1; i++) {
+            sum += sequence[i] * sequence[i + 1];
+        }
+        return sum;
+    }
+
+    private static Partial reduce(double[] s, int blockSize, int fromBlock, int toBlock) {
+        if (toBlock - fromBlock == 1) {
+            return blockSum(s, blockSize, fromBlock);
+        }
+        int mid = (fromBlock + toBlock) >>> 1;
+        return reduce(s, blockSize, fromBlock, mid).plus(reduce(s, blockSize, mid, toBlock));
+    }
+
+    static Partial blockSum(double[] s, int blockSize, int block) {
+        int from = block * blockSize;
+        int to = (int) Math.min((long) from + blockSize, s.length - 1);
+
+        double sum0 = 0, sum1 = 0, sum2 = 0, sum3 = 0;
+        double err0 = 0, err1 = 0, err2 = 0, err3 = 0;
+        int i = from;
+        for (; i + 3 < to; i += 4) {
+            // TwoSum: t = sum + x точно дорівнює (t) + (похибка округлення), похибка накопичується окремо
+            double x0 = s[i] * s[i + 1];
+            double x1 = s[i + 1] * s[i + 2];
+            double x2 = s[i + 2] * s[i + 3];
+            double x3 = s[i + 3] * s[i + 4];
+            double t0 = sum0 + x0;
+            double t1 = sum1 + x1;
+            double t2 = sum2 + x2;
+            double t3 = sum3 + x3;
+            double b0 = t0 - sum0;
+            double b1 = t1 - sum1;
+            double b2 = t2 - sum2;
+            double b3 = t3 - sum3;
+            err0 += (sum0 - (t0 - b0)) + (x0 - b0);
+            err1 += (sum1 - (t1 - b1)) + (x1 - b1);
+            err2 += (sum2 - (t2 - b2)) + (x2 - b2);
+            err3 += (sum3 - (t3 - b3)) + (x3 - b3);
+            sum0 = t0;
+            sum1 = t1;
+            sum2 = t2;
+            sum3 = t3;
+        }
+        Partial result = new Partial(sum0, err0).plus(new Partial(sum1, err1))
+                .plus(new Partial(sum2, err2).plus(new Partial(sum3, err3)));
+        for (; i < to; i++) {
+            result = result.plus(new Partial(s[i] * s[i + 1], 0));
+        }
+        return result;
+    }
+
+    /**
+     * Сума з компенсацією: значення = sum + err, де err - накопичені похибки округлення.
+     */
+    static final class Partial {
+        final double sum;
+        final double err;
+
+        Partial(double sum, double err) {
+            this.sum = sum;
+            this.err = err;
+        }
+
+        Partial plus(Partial other) {
+            double t = sum + other.sum;
+            double b = t - sum;
+            double roundOff = (sum - (t - b)) + (other.sum - b);
+            return new Partial(t, err + other.err + roundOff);
+        }
+
+        double value() {
+            return sum + err;
+        }
+    }
+
+    private static class BlockTask extends RecursiveTask<Partial> {
+        private final double[] sequence;
+        private final int blockSize;
+        private final int fromBlock;
+        private final int toBlock;
+
+        BlockTask(double[] sequence, int blockSize, int fromBlock, int toBlock) {
+            this.sequence = sequence;
+            this.blockSize = blockSize;
+            this.fromBlock = fromBlock;
+            this.toBlock = toBlock;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (toBlock - fromBlock == 1) {
+                return blockSum(sequence, blockSize, fromBlock);
+            }
+            // Поділ за номерами блоків, як у reduce(): дерево об'єднання не залежить від того, хто що вкрав
+            int mid = (fromBlock + toBlock) >>> 1;
+            BlockTask left = new BlockTask(sequence, blockSize, fromBlock, mid);
+            left.fork();
+            Partial right = new BlockTask(sequence, blockSize, mid, toBlock).compute();
+            return left.join().plus(right);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Граф етапів поверх CompletableFuture з двома видами етапів:
+ * - важкі/блокуючі (supply, mapAsync) - переходять у заданий виконавець через Deadline.supplyAsync
+ *   і перериваються після терміну;
+ * - дешеві (map, accept, combine, finish) - зливаються з попереднім етапом: виконуються у потоці,
+ *   що його завершив (thenApply без Async), без передачі задачі у чергу виконавця.
+ * Дешевий етап, доданий до вже завершеного, виконується одразу у викликаючому потоці - тому в дешеві
+ * етапи не можна класти блокуючу роботу.
+ *
+ * Для кожного етапу записується час роботи і час очікування (від готовності входу до початку роботи),
+ * printTimings() виводить їх у порядку завершення. Ті самі часи потрапляють у гістограми Metrics
+ * ("pipeline.<етап>" і "pipeline.<етап>.wait"); частина назви після ':' у ключ не входить, тож
+ * "Завантаження: text1.txt" і "Завантаження: text2.txt" записуються в одну гістограму.
+ */
+class AsyncPipeline {
+
+    private final Deadline deadline;
+    private final Metrics metrics;
+    private final long startNanos = System.nanoTime();
+    private final ConcurrentLinkedQueue<Timing> timings = new ConcurrentLinkedQueue<>();
+
+    AsyncPipeline(Deadline deadline) {
+        this(deadline, Metrics.global());
+    }
+
+    AsyncPipeline(Deadline deadline, Metrics metrics) {
+        this.deadline = deadline;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Початковий важкий або блокуючий етап у executor.
+     */
+    public <T> Stage<T> supply(String name, Callable<T> work, Executor executor) {
+        long ready = System.nanoTime();
+        return new Stage<>(deadline.supplyAsync(() -> timed(name, ready, work), executor));
+    }
+
+    public <T> Stage<T> completed(T value) {
+        return new Stage<>(CompletableFuture.completedFuture(value));
+    }
+
+    /**
+     * Чекає на всі етапи; завершується з помилкою, якщо хоч один з них завершився з помилкою.
+     */
+    public Stage<Void> allOf(Stage<?>... stages) {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[stages.length];
+        for (int i = 0; i < stages.length; i++) {
+            futures[i] = stages[i].future;
+        }
+        return new Stage<>(CompletableFuture.allOf(futures));
+    }
+
+    public long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    public List<Timing> getTimings() {
+        return new ArrayList<>(timings);
+    }
+
+    public void printTimings() {
+        for (Timing timing : timings) {
+            System.out.println("[Timer] " + timing);
+        }
+    }
+
+    private <T> T timed(String name, long readyNanos, Callable<T> work) throws Exception {
+        long start = System.nanoTime();
+        try {
+            return work.call();
+        } finally {
+            Timing timing = new Timing(name, Thread.currentThread().getName(), start - readyNanos, System.nanoTime() - start);
+            timings.add(timing);
+            int colon = name.indexOf(':');
+            String key = "pipeline." + (colon < 0 ? name : name.substring(0, colon));
+            metrics.record(key, timing.workNanos);
+            metrics.record(key + ".wait", timing.waitNanos);
+        }
+    }
+
+    // Дешевий етап після терміну не виконується: ланцюжок завершується тим самим TimeoutException/CancellationException
+    private <T> T fused(String name, Callable<T> work) {
+        if (deadline.isExpired()) {
+            throw new CompletionException(new TimeoutException("Час вичерпано до етапу " + name));
+        }
+        try {
+            return timed(name, System.nanoTime(), work);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Вузол графа; усі етапи, створені від нього, належать тому самому AsyncPipeline.
+     */
+    final class Stage<T> {
+        private final CompletableFuture<T> future;
+
+        private Stage(CompletableFuture<T> future) {
+            this.future = future;
+        }
+
+        public <R> Stage<R> map(String name, Function<? super T, ? extends R> fn) {
+            return new Stage<>(future.thenApply(value -> fused(name, () -> fn.apply(value))));
+        }
+
+        public Stage<Void> accept(String name, Consumer<? super T> action) {
+            return new Stage<>(future.thenApply(value -> fused(name, () -> {
+                action.accept(value);
+                return null;
+            })));
+        }
+
+        public <U, R> Stage<R> combine(Stage<U> other, String name, BiFunction<? super T, ? super U, ? extends R> fn) {
+            return new Stage<>(future.thenCombine(other.future, (a, b) -> fused(name, () -> fn.apply(a, b))));
+        }
+
+        /**
+         * Важкий етап: перехід у executor, робота переривається після терміну.
+         */
+        public <R> Stage<R> mapAsync(String name, Function<? super T, ? extends R> fn, Executor executor) {
+            return new Stage<>(future.thenCompose(value -> {
+                long ready = System.nanoTime();
+                return deadline.supplyAsync(() -> timed(name, ready, () -> fn.apply(value)), executor);
+            }));
+        }
+
+        /**
+         * Значення етапу або Optional.empty(), якщо він не встиг до терміну чи завершився з помилкою.
+         */
+        public Stage<Optional<T>> optional() {
+            return new Stage<>(Deadline.optional(deadline.bound(future)));
+        }
+
+        /**
+         * Завершальний дешевий етап; виконується і після помилки (error != null).
+         */
+        public CompletableFuture<Void> finish(String name, BiConsumer<? super T, Throwable> action) {
+            return future.handle((value, error) -> {
+                try {
+                    return timed(name, System.nanoTime(), () -> {
+                        action.accept(value, error);
+                        return null;
+                    });
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            });
+        }
+
+        public boolean isFailed() {
+            return future.isCompletedExceptionally();
+        }
+
+        public CompletableFuture<T> toFuture() {
+            return future;
+        }
+    }
+
+    /**
+     * Час одного етапу: wait - від готовності входу до початку роботи (черга виконавця), work - сама робота.
+     */
+    static final class Timing {
+        final String stage;
+        final String thread;
+        final long waitNanos;
+        final long workNanos;
+
+        Timing(String stage, String thread, long waitNanos, long workNanos) {
+            this.stage = stage;
+            this.thread = thread;
+            this.waitNanos = waitNanos;
+            this.workNanos = workNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d мкс (очікування %d мкс, %s)", stage, workNanos / 1000, waitNanos / 1000, thread);
+        }
+    }
+}
@@ -1,26 +1,98 @@
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class CompletableFutureLab {
 
-    public static void main(String[] args) throws InterruptedException {
-        System.out.println("====== ЗАПУСК ВАРІАНТУ 1 (Текст і Файли) ======");
-        Variant1.run();
+    public static void main(String[] args) {
+        // --common-pool - усі етапи у ForkJoinPool.commonPool() (як без явного виконавця)
+        // --deadline=МС - кожен варіант обмежено часом; що не встигло - скасовується
+        // --stream=ФАЙЛ - потоковий режим Варіанту 1 для великих файлів: результат пишеться у ФАЙЛ
+        // --unordered   - Варіант 1 виводить результати файлів у порядку готовності, а не у порядку списку
+        // --size=N      - довжина послідовності Варіанту 2 (за замовчуванням 20)
+        // --metrics=ФАЙЛ - гістограми етапів і стан виконавців у ФАЙЛ (JSON для *.json, інакше Prometheus)
+        // Решта аргументів (без "--") - вхідні файли Варіанту 1 або glob-шаблони ("logs/**/*.log");
+        // без них використовуються text1-3.txt
+        List<String> options = Arrays.asList(args);
+        long deadlineMillis = Long.MAX_VALUE;
+        String streamOutput = null;
+        String metricsFile = null;
+        int size = Variant2.DEFAULT_SIZE;
+        List<String> fileSpecs = new ArrayList<>();
+        for (String option : options) {
+            if (option.startsWith("--size=")) {
+                size = Integer.parseInt(option.substring("--size=".length()));
+            } else if (option.startsWith("--deadline=")) {
+                deadlineMillis = Long.parseLong(option.substring("--deadline=".length()));
+            } else if (option.startsWith("--metrics=")) {
+                metricsFile = option.substring("--metrics=".length());
+            } else if (option.startsWith("--stream=")) {
+                streamOutput = option.substring("--stream=".length());
+            } else if (!option.startsWith("--")) {
+                fileSpecs.add(option);
+            }
+        }
+        List<Path> files;
+        try {
+            files = Variant1.resolveFiles(fileSpecs);
+        } catch (IOException e) {
+            System.err.println("Помилка пошуку файлів: " + e.getMessage());
+            return;
+        }
+
+        Metrics.Exporter exporter = metricsFile == null ? null : Metrics.global().exportTo(Paths.get(metricsFile), 1000);
+        try (PipelineExecutors executors = options.contains("--common-pool")
+                ? PipelineExecutors.commonPool()
+                : PipelineExecutors.createDefault()) {
+            System.out.println("Виконавці: " + executors.describe());
+            Metrics.global().registerExecutor("blocking", executors.blocking());
+            Metrics.global().registerExecutor("cpu", executors.cpu());
+
+            if (streamOutput != null) {
+                Variant1.runStreaming(executors, files, Paths.get(streamOutput));
+                return;
+            }
 
-        // Пауза між варіантами
-        Thread.sleep(3000);
+            System.out.println("====== ЗАПУСК ВАРІАНТУ 1 (Текст і Файли) ======");
+            // Термін закривається, щойно варіант завершився: таймер не лишається у черзі до свого часу
+            // Кожен варіант дочікуємо до кінця (тривалість обмежена його терміном): потоки виконавців - daemon,
+            // і без цього JVM завершилась би посеред роботи, а Варіант 2 почався б, поки Варіант 1 ще виводить
+            Deadline deadline1 = Deadline.after(deadlineMillis);
+            await(Variant1.run(executors, deadline1, files, !options.contains("--unordered"))
+                    .whenComplete((v, error) -> deadline1.close()));
 
-        System.out.println("\n\n====== ЗАПУСК ВАРІАНТУ 2 (Математика) ======");
-        Variant2.run();
+            System.out.println("\n\n====== ЗАПУСК ВАРІАНТУ 2 (Математика) ======");
+            Deadline deadline2 = Deadline.after(deadlineMillis);
+            await(Variant2.run(executors, deadline2, size).whenComplete((v, error) -> deadline2.close()));
+        } finally {
+            if (exporter != null) {
+                exporter.close();
+            }
+        }
+    }
 
-        // Затримка перед виходом, щоб асинхронні потоки встигли вивести все в консоль
-        Thread.sleep(3000);
+    // Помилку фінального етапу варіанту виводимо, але не перериваємо нею решту запуску
+    private static void await(CompletableFuture<Void> variant) {
+        try {
+            variant.join();
+        } catch (CompletionException | CancellationException e) {
+            System.err.println("Варіант завершився з помилкою: " + e);
+        }
     }
 }
 
@@ -31,56 +103,167 @@ class Variant1 {
 
     private static final List<String> FILES = Arrays.asList("text1.txt", "text2.txt", "text3.txt");
 
-    public static void run() {
-        // Крок 0: Підготовка файлів
-        // Використовуємо .join(), щоб гарантувати створення файлів ДО читання
-        CompletableFuture.runAsync(() -> {
-            createDummyFiles();
-            System.out.println("[Task 0] Файли створено/оновлено успішно.");
-        }).join();
+    // Компілюється один раз, а не в кожному виклику String.replaceAll
+    private static final Pattern LETTERS = Pattern.compile("[a-zA-Zа-яА-ЯіІїЇєЄ]");
+
+    /**
+     * Читання і запис файлів - у executors.blocking(), обробка тексту і вивід - у executors.cpu().
+     * Кожен файл читається окремим future під deadline і обробляється, щойно прочитаний, не чекаючи решти.
+     * ordered = true - результати виводяться у порядку files, false - у порядку готовності.
+     * Файли, що не прочиталися або не встигли до терміну, пропускаються (частковий результат).
+     * Порожній files - стандартні text1-3.txt, які створюються заново.
+     */
+    public static CompletableFuture<Void> run(PipelineExecutors executors, Deadline deadline, List<Path> files, boolean ordered) {
+        Executor blocking = executors.blocking();
+        Executor cpu = executors.cpu();
+
+        if (files.isEmpty()) {
+            // Крок 0: Підготовка файлів
+            // Використовуємо .join(), щоб гарантувати створення файлів ДО читання
+            CompletableFuture.runAsync(() -> {
+                createDummyFiles();
+                System.out.println("[Task 0] Файли створено/оновлено успішно.");
+            }, blocking).join();
+            files = FILES.stream().map(Paths::get).collect(Collectors.toList());
+        }
 
         System.out.println("[Setup] Готовність 100%. Запускаємо асинхронний ланцюжок...");
 
-        // Крок 1: Завантаження
-        CompletableFuture.supplyAsync(() -> {
-                    long start = System.nanoTime();
-                    System.out.println("[Task 1] Починаю читання файлів...");
-
-                    List<String> sentences = new ArrayList<>();
-                    for (String fileName : FILES) {
-                        try {
-                            sentences.addAll(Files.readAllLines(Paths.get(fileName)));
-                        } catch (IOException e) {
-                            System.err.println("Помилка читання " + fileName);
-                        }
-                    }
+        // Крок 1 + 2: Завантаження і обробка кожного файлу окремо
+        // Читання і обробка - важкі етапи з переходом у свій виконавець, вивід і фінал - дешеві,
+        // виконуються у потоці, що завершив попередній етап
+        AsyncPipeline pipeline = new AsyncPipeline(deadline);
+        System.out.println("[Task 1] Починаю читання файлів (" + files.size() + ")...");
+        List<AsyncPipeline.Stage<Optional<FileResult>>> results = new ArrayList<>();
+        for (Path path : files) {
+            results.add(pipeline.supply("Завантаження: " + path, () -> Files.readAllLines(path), blocking)
+                    .mapAsync("Обробка тексту: " + path, lines -> {
+                        // Видаляємо всі літери
+                        List<String> withoutLetters = lines.stream()
+                                .map(line -> LETTERS.matcher(line).replaceAll(""))
+                                .collect(Collectors.toList());
+                        return new FileResult(lines, withoutLetters);
+                    }, cpu)
+                    .optional());
+        }
 
-                    printTime("Завантаження файлів", start);
-                    return sentences;
-                })
-                // Крок 2: Обробка
-                .thenApplyAsync(originalSentences -> {
-                    long start = System.nanoTime();
-                    System.out.println(">>> Оригінальні речення: " + originalSentences);
-
-                    // Видаляємо всі літери
-                    List<String> processed = originalSentences.stream()
-                            .map(s -> s.replaceAll("[a-zA-Zа-яА-ЯіІїЇєЄ]", ""))
-                            .collect(Collectors.toList());
-
-                    printTime("Обробка тексту", start);
-                    return processed;
-                })
-                // Крок 3: Вивід результату
-                .thenAcceptAsync(processedSentences -> {
-                    long start = System.nanoTime();
-                    System.out.println(">>> Оброблений масив (без літер): " + processedSentences);
-                    printTime("Вивід результату", start);
-                })
-                // Крок 4: Фінал
-                .thenRunAsync(() -> {
-                    System.out.println("--- Варіант 1 повністю завершено ---");
+        // Крок 3: Вивід результату
+        int[] skipped = {0};
+        AsyncPipeline.Stage<Void> output;
+        if (ordered) {
+            // Кожен вивід чекає на попередній - порядок як у files, але обробка вже йде паралельно
+            output = pipeline.completed(null);
+            for (int i = 0; i < files.size(); i++) {
+                Path path = files.get(i);
+                output = output.combine(results.get(i), "Вивід: " + path, (v, result) -> {
+                    printResult(path, result, skipped);
+                    return null;
+                });
+            }
+        } else {
+            AsyncPipeline.Stage<?>[] printed = new AsyncPipeline.Stage<?>[files.size()];
+            for (int i = 0; i < files.size(); i++) {
+                Path path = files.get(i);
+                printed[i] = results.get(i).accept("Вивід: " + path, result -> {
+                    synchronized (skipped) {
+                        printResult(path, result, skipped);
+                    }
                 });
+            }
+            output = pipeline.allOf(printed);
+        }
+
+        // Крок 4: Фінал
+        return output.finish("Фінал", (v, error) -> {
+            pipeline.printTimings();
+            System.out.printf("[Timer] Завантаження, обробка і вивід: %d мкс%n", pipeline.elapsedNanos() / 1000);
+            if (error != null) {
+                System.out.println("--- Варіант 1 перервано: " + error + " ---");
+            } else if (skipped[0] > 0) {
+                System.out.println("--- Варіант 1 завершено частково: пропущено файлів " + skipped[0] + " ---");
+            } else {
+                System.out.println("--- Варіант 1 повністю завершено ---");
+            }
+        });
+    }
+
+    /**
+     * Перетворює аргументи на список файлів: звичайні шляхи як є, glob-шаблони ("*.txt", "logs/**.log")
+     * розкриваються обходом від найдовшого префікса без спецсимволів, у відсортованому порядку.
+     */
+    static List<Path> resolveFiles(List<String> specs) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (String spec : specs) {
+            if (spec.chars().noneMatch(c -> "*?[{".indexOf(c) >= 0)) {
+                files.add(Paths.get(spec));
+                continue;
+            }
+            Path pattern = Paths.get(spec);
+            Path prefix = pattern.isAbsolute() ? pattern.getRoot() : Paths.get("");
+            for (Path part : pattern) {
+                if (part.toString().chars().anyMatch(c -> "*?[{".indexOf(c) >= 0)) break;
+                prefix = prefix.resolve(part);
+            }
+            // Відносний шаблон зіставляється з відносними шляхами, тому результати обходу від "." теж відносні
+            Path base = prefix;
+            PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + spec);
+            try (Stream<Path> walk = Files.walk(base.toString().isEmpty() ? Paths.get(".") : base)) {
+                walk.filter(Files::isRegularFile)
+                        .map(p -> base.toString().isEmpty() ? Paths.get(".").relativize(p) : p)
+                        .filter(matcher::matches)
+                        .sorted()
+                        .forEach(files::add);
+            }
+        }
+        return files;
+    }
+
+    private static void printResult(Path path, Optional<FileResult> result, int[] skipped) {
+        if (result.isPresent()) {
+            System.out.println(">>> " + path + ": " + result.get().original + " -> " + result.get().withoutLetters);
+        } else {
+            skipped[0]++;
+            System.out.println(">>> " + path + ": пропущено (помилка читання або час вичерпано)");
+        }
+    }
+
+    // Результат одного файлу: вихідні рядки і рядки без літер
+    private static class FileResult {
+        final List<String> original;
+        final List<String> withoutLetters;
+
+        FileResult(List<String> original, List<String> withoutLetters) {
+            this.original = original;
+            this.withoutLetters = withoutLetters;
+        }
+    }
+
+    /**
+     * Потоковий режим: файли не завантажуються у пам'ять цілком, а фільтруються блоками (StreamingLetterFilter)
+     * паралельно у executors.cpu() з упорядкованим записом у output.
+     */
+    public static void runStreaming(PipelineExecutors executors, List<Path> inputs, Path output) {
+        if (inputs.isEmpty()) {
+            createDummyFiles();
+            inputs = FILES.stream().map(Paths::get).collect(Collectors.toList());
+        }
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        StreamingLetterFilter filter = new StreamingLetterFilter(executors.cpu(),
+                StreamingLetterFilter.DEFAULT_BLOCK_SIZE, 2 * parallelism);
+
+        System.out.println("[Stream] Фільтрація " + inputs + " -> " + output);
+        long start = System.nanoTime();
+        try {
+            long[] stats = filter.filter(inputs, output);
+            long elapsed = System.nanoTime() - start;
+            Metrics.global().record("stream.filter", elapsed);
+            Metrics.global().counter("stream.bytes_in").add(stats[0]);
+            double seconds = elapsed / 1e9;
+            System.out.printf("[Stream] Прочитано %d байт, записано %d байт, блоків: %d, %.1f МБ/с, %d мс%n",
+                    stats[0], stats[1], stats[2], stats[0] / 1e6 / seconds, Math.round(seconds * 1000));
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Помилка потокової обробки: " + e.getMessage());
+        }
     }
 
     private static void createDummyFiles() {
@@ -92,11 +275,6 @@ class Variant1 {
             e.printStackTrace();
         }
     }
-
-    private static void printTime(String taskName, long startTime) {
-        long duration = (System.nanoTime() - startTime) / 1000;
-        System.out.printf("[Timer] %s: %d мкс%n", taskName, duration);
-    }
 }
 
 // ---------------------------------------------------------------
@@ -104,59 +282,63 @@ class Variant1 {
 // ---------------------------------------------------------------
 class Variant2 {
 
-    public static void run() {
-        long globalStart = System.nanoTime();
+    // Довжина послідовності без --size
+    static final int DEFAULT_SIZE = 20;
 
-        // Крок 1: Генерація
-        CompletableFuture<double[]> dataFuture = CompletableFuture.supplyAsync(() -> {
-            long start = System.nanoTime();
-            System.out.println("[Task 1] Генерація чисел...");
+    // Масиви, довші за цей, не друкуються
+    private static final int PRINT_LIMIT = 20;
 
-            double[] sequence = new double[20];
-            for (int i = 0; i < sequence.length; i++) {
-                sequence[i] = Math.round(ThreadLocalRandom.current().nextDouble(1, 10) * 100.0) / 100.0;
-            }
+    // Генерація і обчислення - важкі етапи у executors.cpu(), вивід і фінал - дешеві, без переходу між потоками;
+    // кожна гілка обмежена deadline.
+    // Сума добутків рахується AdjacentProductSum: паралельно блоками, з компенсацією похибки і
+    // з однаковим результатом незалежно від кількості потоків
+    public static CompletableFuture<Void> run(PipelineExecutors executors, Deadline deadline, int size) {
+        Executor cpu = executors.cpu();
+        ForkJoinPool pool = cpu instanceof ForkJoinPool ? (ForkJoinPool) cpu : ForkJoinPool.commonPool();
+        AsyncPipeline pipeline = new AsyncPipeline(deadline);
+
+        // Крок 1: Генерація
+        AsyncPipeline.Stage<double[]> data = pipeline.supply("Генерація даних", () -> {
+            System.out.println("[Task 1] Генерація чисел (" + size + ")...");
 
-            printTime("Генерація даних", start);
+            double[] sequence = new double[size];
+            Arrays.parallelSetAll(sequence, i -> Math.round(ThreadLocalRandom.current().nextDouble(1, 10) * 100.0) / 100.0);
             return sequence;
-        });
+        }, cpu);
 
         // Гілка А: Вивід
-        CompletableFuture<Void> printInputTask = dataFuture.thenAcceptAsync(sequence -> {
-            long start = System.nanoTime();
-            System.out.println(">>> Вхідна послідовність: " + Arrays.toString(sequence));
-            printTime("Вивід масиву", start);
-        });
+        AsyncPipeline.Stage<Void> printInput = data.accept("Вивід масиву", sequence ->
+                System.out.println(">>> Вхідна послідовність: "
+                        + (sequence.length <= PRINT_LIMIT ? Arrays.toString(sequence) : sequence.length + " чисел")));
 
         // Гілка Б: Обчислення -> Вивід
-        CompletableFuture<Void> calcTask = dataFuture.thenApplyAsync(sequence -> {
-            long start = System.nanoTime();
+        AsyncPipeline.Stage<Double> computed = data.mapAsync("Математичні обчислення", sequence -> {
             System.out.println("[Task 2] Обчислення формули...");
+            return AdjacentProductSum.compute(pool, sequence);
+        }, cpu);
+        if (size > PRINT_LIMIT) {
+            // Для порівняння - початковий послідовний цикл без компенсації, у тому ж потоці, що й обчислення
+            computed = computed.combine(data, "Послідовний цикл", (result, sequence) -> {
+                double naive = AdjacentProductSum.naive(sequence);
+                System.out.printf(">>> Послідовний цикл: %.4f (різниця %.3e)%n", naive, naive - result);
+                return result;
+            });
+        }
+        AsyncPipeline.Stage<Void> calc = computed.accept("Вивід результату",
+                result -> System.out.printf(">>> РЕЗУЛЬТАТ ОБЧИСЛЕННЯ: %.4f%n", result));
 
-            double sum = 0;
-            for (int i = 0; i < sequence.length - 1; i++) {
-                sum += sequence[i] * sequence[i+1];
-            }
-
-            printTime("Математичні обчислення", start);
-            return sum;
-        }).thenAcceptAsync(result -> {
-            long start = System.nanoTime();
-            System.out.printf(">>> РЕЗУЛЬТАТ ОБЧИСЛЕННЯ: %.4f%n", result);
-            printTime("Вивід результату", start);
-        });
-
-        // Фінал
-        CompletableFuture.allOf(printInputTask, calcTask).thenRunAsync(() -> {
-            long totalDuration = (System.nanoTime() - globalStart) / 1_000_000;
+        // Фінал: виконується і тоді, коли частина гілок не встигла
+        return pipeline.allOf(printInput, calc).finish("Фінал", (v, error) -> {
+            pipeline.printTimings();
             System.out.println("------------------------------------------------");
-            System.out.printf("Загальний час роботи Варіанту 2: %d мс%n", totalDuration);
-            System.out.println("--- Варіант 2 повністю завершено ---");
+            System.out.printf("Загальний час роботи Варіанту 2: %d мс%n", pipeline.elapsedNanos() / 1_000_000);
+            if (error == null) {
+                System.out.println("--- Варіант 2 повністю завершено ---");
+            } else {
+                System.out.printf("--- Варіант 2 перервано (вивід масиву: %s, обчислення: %s) ---%n",
+                        printInput.isFailed() ? "не встиг" : "готово",
+                        calc.isFailed() ? "не встигло" : "готово");
+            }
         });
     }
-
-    private static void printTime(String taskName, long startTime) {
-        long duration = (System.nanoTime() - startTime) / 1000;
-        System.out.printf("[Timer] %s: %d мкс%n", taskName, duration);
-    }
 }
\ No newline at end of file
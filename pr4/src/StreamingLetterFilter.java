@@ -0,0 +1,137 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Потокова версія кроку "видалити всі літери" з Variant1 для великих файлів.
+ * Файли читаються блоками через FileChannel.map (без readAllLines і без String), межа блоку зсувається
+ * до кінця рядка, тож багатобайтові символи UTF-8 ніколи не розрізаються. Блоки всіх файлів обробляються
+ * паралельно у executor, а результати записуються у вихідний файл у вихідному порядку, щойно готовий
+ * черговий блок. У пам'яті одночасно не більше maxInFlight блоків, незалежно від розміру вхідних даних.
+ *
+ * Фільтр працює на байтах UTF-8 і видаляє той самий набір, що й "[a-zA-Zа-яА-ЯіІїЇєЄ]".
+ */
+class StreamingLetterFilter {
+
+    public static final int DEFAULT_BLOCK_SIZE = 8 << 20;
+
+    private final Executor executor;
+    private final int blockSize;
+    private final int maxInFlight;
+
+    public StreamingLetterFilter(Executor executor, int blockSize, int maxInFlight) {
+        if (blockSize < 16 || maxInFlight < 1) {
+            throw new IllegalArgumentException("blockSize >= 16, maxInFlight >= 1");
+        }
+        this.executor = executor;
+        this.blockSize = blockSize;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Фільтрує inputs (у заданому порядку) у один файл output. Повертає {прочитано байтів, записано байтів, блоків}.
+     */
+    public long[] filter(List<Path> inputs, Path output) throws IOException {
+        long bytesIn = 0;
+        long bytesOut = 0;
+        long blocks = 0;
+        ArrayDeque<CompletableFuture<ByteBuffer>> window = new ArrayDeque<>();
+
+        try (FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Path input : inputs) {
+                // Відображення лишається дійсним і після закриття каналу
+                try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ)) {
+                    long size = in.size();
+                    long position = 0;
+                    while (position < size) {
+                        int length = (int) Math.min(blockSize, size - position);
+                        MappedByteBuffer mapped = in.map(FileChannel.MapMode.READ_ONLY, position, length);
+                        int end = position + length < size ? blockEnd(mapped, length) : length;
+                        ByteBuffer block = mapped.slice(0, end);
+
+                        window.add(CompletableFuture.supplyAsync(() -> removeLetters(block), executor));
+                        if (window.size() >= maxInFlight) {
+                            bytesOut += write(out, window.poll().join());
+                        }
+                        position += end;
+                        bytesIn += end;
+                        blocks++;
+                    }
+                }
+            }
+            while (!window.isEmpty()) {
+                bytesOut += write(out, window.poll().join());
+            }
+        }
+        return new long[]{bytesIn, bytesOut, blocks};
+    }
+
+    // Кінець блоку - одразу після останнього '\n'; якщо рядок довший за блок - по межі символу UTF-8
+    private static int blockEnd(ByteBuffer mapped, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (mapped.get(i) == '\n') return i + 1;
+        }
+        int start = length - 1;
+        while (start > 0 && (mapped.get(start) & 0xC0) == 0x80) {
+            start--; // байт продовження (10xxxxxx) - символ почався раніше
+        }
+        int lead = mapped.get(start) & 0xFF;
+        int charLength = lead < 0x80 ? 1 : lead >= 0xF0 ? 4 : lead >= 0xE0 ? 3 : 2;
+        return start + charLength <= length ? length : start;
+    }
+
+    private static int write(FileChannel out, ByteBuffer data) {
+        try {
+            int written = 0;
+            while (data.hasRemaining()) {
+                written += out.write(data);
+            }
+            return written;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Копіює src без латинських літер, літер А-Я/а-я та і/І/ї/Ї/є/Є.
+     * Кирилиця у UTF-8 - два байти: U+0400..U+043F = D0 80..BF, U+0440..U+047F = D1 80..BF.
+     */
+    static ByteBuffer removeLetters(ByteBuffer src) {
+        int length = src.remaining();
+        byte[] dst = new byte[length];
+        int n = 0;
+        int i = 0;
+        while (i < length) {
+            int b = src.get(i) & 0xFF;
+            if (b < 0x80) {
+                if (!((b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z'))) {
+                    dst[n++] = (byte) b;
+                }
+                i++;
+            } else if ((b == 0xD0 || b == 0xD1) && i + 1 < length) {
+                int next = src.get(i + 1) & 0xFF;
+                boolean letter = b == 0xD0
+                        ? (next >= 0x90 && next <= 0xBF) || next == 0x84 || next == 0x86 || next == 0x87 // А-п, Є, І, Ї
+                        : (next >= 0x80 && next <= 0x8F) || next == 0x94 || next == 0x96 || next == 0x97; // р-я, є, і, ї
+                if (!letter) {
+                    dst[n++] = (byte) b;
+                    dst[n++] = (byte) next;
+                }
+                i += 2;
+            } else {
+                dst[n++] = (byte) b;
+                i++;
+            }
+        }
+        return ByteBuffer.wrap(dst, 0, n);
+    }
+}
@@ -0,0 +1,192 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Асинхронний кеш, що зберігає CompletableFuture значень.
+ * - Одночасні промахи за тим самим ключем чекають на одне завантаження (спільний future).
+ * - Розмір обмежено maximumSize, витісняється найдавніше використаний запис (LRU).
+ * - Запис живе ttlMillis від моменту завантаження; після refreshAfterMillis перше звернення
+ *   запускає фонове оновлення, а до його завершення віддається старе значення.
+ * - Невдалі завантаження не кешуються.
+ */
+class AsyncLoadingCache<K, V> implements AsyncLookup<K, V> {
+
+    private final Function<K, V> loader;
+    private final Executor executor;
+    private final long ttlNanos;
+    private final long refreshAfterNanos;
+
+    // Порядок доступу + removeEldestEntry дають LRU; усі звернення під synchronized (this)
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param loader            блокуюче завантаження значення; виконується у executor
+     * @param refreshAfterMillis 0 - без оновлення наперед
+     */
+    public AsyncLoadingCache(Function<K, V> loader, Executor executor, int maximumSize,
+                             long ttlMillis, long refreshAfterMillis) {
+        if (maximumSize < 1 || ttlMillis <= 0 || refreshAfterMillis < 0) {
+            throw new IllegalArgumentException("maximumSize >= 1, ttlMillis > 0, refreshAfterMillis >= 0");
+        }
+        this.loader = loader;
+        this.executor = executor;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.refreshAfterNanos = refreshAfterMillis == 0 ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(refreshAfterMillis);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > maximumSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public CompletableFuture<V> get(K key) {
+        long now = System.nanoTime();
+        Entry<V> entry;
+        boolean refresh = false;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry != null && !entry.isExpired(now, ttlNanos)) {
+                hits.increment();
+                if (!entry.refreshing && entry.loadedAt != 0 && now - entry.loadedAt >= refreshAfterNanos) {
+                    entry.refreshing = true;
+                    refresh = true;
+                }
+            } else {
+                misses.increment();
+                entry = new Entry<>(new CompletableFuture<>());
+                entries.put(key, entry);
+                load(key, entry, entry.future);
+                return entry.future;
+            }
+        }
+        CompletableFuture<V> current = entry.future;
+        if (refresh) {
+            refreshes.increment();
+            // Нове значення підміняє старе лише після успішного завантаження
+            load(key, entry, new CompletableFuture<>());
+        }
+        return current;
+    }
+
+    /**
+     * Видаляє запис; наступне звернення завантажить значення заново.
+     */
+    public synchronized void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public double getHitRate() {
+        long total = hits.sum() + misses.sum();
+        return total == 0 ? 0 : (double) hits.sum() / total;
+    }
+
+    public long getLoadCount() {
+        return loads.sum();
+    }
+
+    public long getLoadFailureCount() {
+        return loadFailures.sum();
+    }
+
+    public double getAverageLoadMillis() {
+        long count = loads.sum();
+        return count == 0 ? 0 : loadNanos.sum() / 1e6 / count;
+    }
+
+    public long getRefreshCount() {
+        return refreshes.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("записів: %d, влучань: %d, промахів: %d (%.0f%% влучань), завантажень: %d (помилок: %d, "
+                        + "сер. %.1f мс), оновлень наперед: %d, витіснень: %d",
+                size(), getHitCount(), getMissCount(), getHitRate() * 100, getLoadCount(), getLoadFailureCount(),
+                getAverageLoadMillis(), getRefreshCount(), getEvictionCount());
+    }
+
+    private void load(K key, Entry<V> entry, CompletableFuture<V> target) {
+        CompletableFuture.runAsync(() -> {
+            long start = System.nanoTime();
+            V value;
+            try {
+                value = loader.apply(key);
+            } catch (Throwable e) {
+                loadFailures.increment();
+                onLoadFailed(key, entry, target, e);
+                return;
+            }
+            long end = System.nanoTime();
+            loads.increment();
+            loadNanos.add(end - start);
+            synchronized (this) {
+                entry.future = target;
+                entry.loadedAt = end;
+                entry.refreshing = false;
+            }
+            target.complete(value);
+        }, executor);
+    }
+
+    private void onLoadFailed(K key, Entry<V> entry, CompletableFuture<V> target, Throwable error) {
+        synchronized (this) {
+            if (entry.future == target) {
+                // Перше завантаження не вдалося - не кешуємо помилку
+                entries.remove(key, entry);
+            } else {
+                // Невдале оновлення наперед: старе значення лишається до завершення TTL
+                entry.refreshing = false;
+            }
+        }
+        target.completeExceptionally(error);
+    }
+
+    private static class Entry<V> {
+        CompletableFuture<V> future;
+        long loadedAt; // 0 - ще завантажується
+        boolean refreshing;
+
+        Entry(CompletableFuture<V> future) {
+            this.future = future;
+        }
+
+        boolean isExpired(long now, long ttlNanos) {
+            return loadedAt != 0 && now - loadedAt >= ttlNanos;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Асинхронне отримання значення за ключем: прямий виклик або кеш (AsyncLoadingCache).
+ */
+@FunctionalInterface
+interface AsyncLookup<K, V> {
+
+    CompletableFuture<V> get(K key);
+
+    /**
+     * Кожне звернення - окремий виклик fetch у executor, без кешування.
+     */
+    static <K, V> AsyncLookup<K, V> direct(Function<K, V> fetch, Executor executor) {
+        return key -> CompletableFuture.supplyAsync(() -> fetch.apply(key), executor);
+    }
+}
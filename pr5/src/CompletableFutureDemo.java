@@ -1,35 +1,99 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class CompletableFutureDemo {
 
+    // У режимі навантаження проміжні повідомлення вимикаються, щоб не вимірювати швидкість консолі
+    private static volatile boolean verbose = true;
+
+    // Для викликів без крайнього терміну
+    private static final Deadline NO_DEADLINE = Deadline.after(Long.MAX_VALUE);
+
     public static void main(String[] args) throws ExecutionException, InterruptedException {
-        System.out.println("===== ЗАДАЧА 1: Об'єднання двох асинхронних завдань =====");
-        solveTask1();
+        // --common-pool - усі етапи у ForkJoinPool.commonPool() (як без явного виконавця), для порівняння
+        // --load=N      - замість демонстрації запустити N одночасних аналізів і виміряти пропускну здатність
+        // --batch=N     - пакетний аналіз N програм (SoftwareAnalyzer: пакетні виклики + об'єднання однакових ID)
+        // --cache       - ID і критерії через AsyncLoadingCache (LRU + TTL + оновлення наперед)
+        // --hedge=N     - N запитів до двох локальних серверів: anyOf проти HedgedRequester
+        // --deadline=МС - аналіз у задачі 2 обмежено часом: що не встигло - скасовується, решта повертається частково
+        List<String> options = Arrays.asList(args);
+        long load = 0;
+        long batch = 0;
+        long hedge = 0;
+        long deadlineMillis = 0;
+        for (String option : options) {
+            if (option.startsWith("--load=")) {
+                load = Long.parseLong(option.substring("--load=".length()));
+            } else if (option.startsWith("--batch=")) {
+                batch = Long.parseLong(option.substring("--batch=".length()));
+            } else if (option.startsWith("--hedge=")) {
+                hedge = Long.parseLong(option.substring("--hedge=".length()));
+            } else if (option.startsWith("--deadline=")) {
+                deadlineMillis = Long.parseLong(option.substring("--deadline=".length()));
+            }
+        }
+
+        try (PipelineExecutors executors = options.contains("--common-pool")
+                ? PipelineExecutors.commonPool()
+                : PipelineExecutors.createDefault()) {
+            System.out.println("Виконавці: " + executors.describe());
+            SoftwareLookups lookups = options.contains("--cache")
+                    ? SoftwareLookups.cached(executors.blocking(), 10_000, 60_000, 45_000)
+                    : SoftwareLookups.direct(executors.blocking());
+
+            if (load > 0) {
+                runLoadTest((int) load, lookups, executors);
+                return;
+            }
+
+            if (batch > 0) {
+                runBatchAnalysis((int) batch, executors);
+                return;
+            }
+
+            if (hedge > 0) {
+                runHedgeComparison((int) hedge, executors);
+                return;
+            }
+
+            System.out.println("===== ЗАДАЧА 1: Об'єднання двох асинхронних завдань =====");
+            solveTask1(executors);
 
-        System.out.println("\n===== ЗАДАЧА 2: Аналіз ПЗ (ціна, функціонал, підтримка) =====");
-        solveTask2();
+            System.out.println("\n===== ЗАДАЧА 2: Аналіз ПЗ (ціна, функціонал, підтримка) =====");
+            solveTask2(lookups, executors, deadlineMillis);
+        }
     }
 
     // --------------------------------------------------------
     // РІШЕННЯ ЗАДАЧІ 1
     // --------------------------------------------------------
-    private static void solveTask1() throws ExecutionException, InterruptedException {
+    private static void solveTask1(PipelineExecutors executors) throws ExecutionException, InterruptedException {
         // 1. Створюємо перше асинхронне завдання (наприклад, отримуємо частину даних)
         CompletableFuture<String> task1 = CompletableFuture.supplyAsync(() -> {
             simulateDelay(1);
             System.out.println("Task 1: Завантаження даних користувача завершено.");
             return "Користувач: Іван;";
-        });
+        }, executors.blocking());
 
         // 2. Створюємо друге асинхронне завдання
         CompletableFuture<String> task2 = CompletableFuture.supplyAsync(() -> {
             simulateDelay(2); // Це завдання довше
             System.out.println("Task 2: Завантаження налаштувань завершено.");
             return " Налаштування: Dark Mode";
-        });
+        }, executors.blocking());
 
         // 3. Використовуємо thenCombine для об'єднання результатів, коли ОБИДВА завдання готові
         CompletableFuture<String> combinedTask = task1.thenCombine(task2, (user, settings) -> {
@@ -43,22 +107,17 @@ public class CompletableFutureDemo {
     // --------------------------------------------------------
     // РІШЕННЯ ЗАДАЧІ 2
     // --------------------------------------------------------
-    private static void solveTask2() throws ExecutionException, InterruptedException {
+    private static void solveTask2(SoftwareLookups lookups, PipelineExecutors executors, long deadlineMillis)
+            throws ExecutionException, InterruptedException {
 
-        // КРОК 1: Демонстрація anyOf()
+        // КРОК 1: Вибір сервера
         // Уявимо, що у нас є два джерела даних (сервери), і ми беремо дані з того, який відповість швидше.
-        CompletableFuture<String> serverEU = CompletableFuture.supplyAsync(() -> {
-            simulateDelay(ThreadLocalRandom.current().nextInt(1, 4));
-            return "Server EU";
-        });
-        CompletableFuture<String> serverUS = CompletableFuture.supplyAsync(() -> {
-            simulateDelay(ThreadLocalRandom.current().nextInt(1, 4));
-            return "Server US";
-        });
-
-        CompletableFuture<Object> fastestServer = CompletableFuture.anyOf(serverEU, serverUS);
-
-        System.out.println("Підключено до найшвидшого сервера: " + fastestServer.get());
+        // anyOf завжди навантажує обидва сервери; HedgedRequester звертається до другого лише якщо перший
+        // не відповів за типовий для нього час, і скасовує запит, що програв.
+        try (HedgedRequester<String> servers = new HedgedRequester<>(standInServers(1000), executors.blocking(), 0.95, 1500)) {
+            System.out.println("Підключено до найшвидшого сервера: " + servers.call().get());
+            System.out.println("Статистика запитів: " + servers);
+        }
 
         // КРОК 2: Демонстрація thenCompose()
         // Уявимо, що ми обрали програму "IntelliJ IDEA" і нам треба отримати її ID, а потім за ID отримати деталі.
@@ -66,66 +125,299 @@ public class CompletableFutureDemo {
 
         String softwareName = "IntelliJ IDEA";
 
-        CompletableFuture<SoftwareStats> analysisTask = CompletableFuture.supplyAsync(() -> getSoftwareId(softwareName))
+        if (deadlineMillis > 0) {
+            try (Deadline deadline = Deadline.after(deadlineMillis)) {
+                long start = System.nanoTime();
+                PartialSoftwareStats partial = analyzeSoftware(softwareName, deadline, executors).get();
+                System.out.println("\n=== ЗВІТ ПО ЗАДАЧІ 2 (крайній термін " + deadlineMillis + " мс) ===");
+                System.out.println(partial);
+                System.out.printf("Отримано за %.0f мс, перервано задач: %d%n",
+                        (System.nanoTime() - start) / 1e6, deadline.getInterruptedCount());
+            }
+            return;
+        }
+
+        // Отримуємо фінальний результат
+        SoftwareStats result = analyzeSoftware(softwareName, lookups, executors.cpu()).get();
+        System.out.println("\n=== ФІНАЛЬНИЙ ЗВІТ ПО ЗАДАЧІ 2 ===");
+        System.out.println(result);
+
+        // Повторний аналіз тієї самої програми: з --cache усі дані беруться з кешу
+        long repeatStart = System.nanoTime();
+        analyzeSoftware(softwareName, lookups, executors.cpu()).get();
+        System.out.printf("Повторний аналіз: %.1f мс%n", (System.nanoTime() - repeatStart) / 1e6);
+        System.out.print(lookups.describeCaches());
+
+        // Логіка вибору (спрощена)
+        if (result.functionalityScore > 8 && result.price < 500) {
+            System.out.println("ВИСНОВОК: Це чудовий варіант для вибору!");
+        } else {
+            System.out.println("ВИСНОВОК: Варто пошукати інші варіанти.");
+        }
+    }
+
+    /**
+     * Аналіз однієї програми: ID, потім паралельно ціна, функціонал і підтримка.
+     * Виклики, що блокуються, виконуються у executors.blocking(), збирання результату - у executors.cpu().
+     */
+    static CompletableFuture<SoftwareStats> analyzeSoftware(String softwareName, PipelineExecutors executors) {
+        return analyzeSoftware(softwareName, SoftwareLookups.direct(executors.blocking()), executors.cpu());
+    }
+
+    /**
+     * Те саме, але дані беруться з lookups (напряму або через кеш).
+     */
+    static CompletableFuture<SoftwareStats> analyzeSoftware(String softwareName, SoftwareLookups lookups, Executor cpu) {
+        return lookups.softwareId.get(softwareName)
                 .thenCompose(id -> {
-                    System.out.println("Знайдено ID програми (" + id + "). Починаємо паралельний збір критеріїв...");
+                    log("Знайдено ID програми (" + id + "). Починаємо паралельний збір критеріїв...");
 
                     // КРОК 3: Паралельне отримання критеріїв (Задача з картинки)
-                    CompletableFuture<Integer> priceTask = CompletableFuture.supplyAsync(() -> getPrice(id));
-                    CompletableFuture<Integer> functionalityTask = CompletableFuture.supplyAsync(() -> getFunctionalityScore(id));
-                    CompletableFuture<String> supportTask = CompletableFuture.supplyAsync(() -> getSupportInfo(id));
+                    CompletableFuture<Integer> priceTask = lookups.price.get(id);
+                    CompletableFuture<Integer> functionalityTask = lookups.functionality.get(id);
+                    CompletableFuture<String> supportTask = lookups.support.get(id);
 
                     // КРОК 4: Демонстрація allOf()
                     // Чекаємо поки ВСІ три метрики будуть отримані
                     return CompletableFuture.allOf(priceTask, functionalityTask, supportTask)
-                            .thenApply(v -> {
+                            .thenApplyAsync(v -> {
                                 // Коли всі завершились, збираємо результати в об'єкт
                                 // join() тут безпечний, бо allOf гарантує завершення
                                 int p = priceTask.join();
                                 int f = functionalityTask.join();
                                 String s = supportTask.join();
                                 return new SoftwareStats(softwareName, p, f, s);
-                            });
+                            }, cpu);
                 });
+    }
 
-        // Отримуємо фінальний результат
-        SoftwareStats result = analysisTask.get();
-        System.out.println("\n=== ФІНАЛЬНИЙ ЗВІТ ПО ЗАДАЧІ 2 ===");
-        System.out.println(result);
+    /**
+     * Аналіз з крайнім терміном. Кожен виклик отримує залишок часу deadline як бюджет; коли час вийшов,
+     * незавершені виклики перериваються, а результат містить лише критерії, що встигли завершитися.
+     * Future завершується не пізніше за deadline (з точністю до планувальника) і ніколи не завершується помилкою.
+     */
+    static CompletableFuture<PartialSoftwareStats> analyzeSoftware(String softwareName, Deadline deadline,
+                                                                   PipelineExecutors executors) {
+        Executor blocking = executors.blocking();
+        CompletableFuture<Integer> idTask = deadline.supplyAsync(() -> getSoftwareId(softwareName, deadline), blocking);
+        return Deadline.optional(idTask).thenCompose(id -> {
+            if (id.isEmpty()) {
+                return CompletableFuture.completedFuture(new PartialSoftwareStats(softwareName, null, null, null));
+            }
+            log("Знайдено ID програми (" + id.get() + "), залишок часу: " + deadline.remainingMillis() + " мс");
 
-        // Логіка вибору (спрощена)
-        if (result.functionalityScore > 8 && result.price < 500) {
-            System.out.println("ВИСНОВОК: Це чудовий варіант для вибору!");
-        } else {
-            System.out.println("ВИСНОВОК: Варто пошукати інші варіанти.");
+            CompletableFuture<Optional<Integer>> priceTask = Deadline.optional(
+                    deadline.supplyAsync(() -> getPrice(id.get(), deadline), blocking));
+            CompletableFuture<Optional<Integer>> functionalityTask = Deadline.optional(
+                    deadline.supplyAsync(() -> getFunctionalityScore(id.get(), deadline), blocking));
+            CompletableFuture<Optional<String>> supportTask = Deadline.optional(
+                    deadline.supplyAsync(() -> getSupportInfo(id.get(), deadline), blocking));
+
+            return CompletableFuture.allOf(priceTask, functionalityTask, supportTask)
+                    .thenApplyAsync(v -> new PartialSoftwareStats(softwareName,
+                            priceTask.join().orElse(null),
+                            functionalityTask.join().orElse(null),
+                            supportTask.join().orElse(null)), executors.cpu());
+        });
+    }
+
+    /**
+     * Навантажувальний тест: analyses одночасних аналізів, пропускна здатність і час до останнього результату.
+     * Кожен аналіз блокується щонайменше на 3 с (ID, потім найдовший з трьох критеріїв),
+     * тож за достатньої кількості потоків загальний час близький до 3 с незалежно від analyses.
+     */
+    private static void runLoadTest(int analyses, SoftwareLookups lookups, PipelineExecutors executors) {
+        verbose = false;
+        System.out.println("Запуск " + analyses + " одночасних аналізів...");
+        long start = System.nanoTime();
+
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[analyses];
+        for (int i = 0; i < analyses; i++) {
+            futures[i] = analyzeSoftware("Program-" + i, lookups, executors.cpu());
+        }
+        CompletableFuture.allOf(futures).join();
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Завершено аналізів: %d за %.2f с, пропускна здатність: %.0f аналізів/с%n",
+                analyses, seconds, analyses / seconds);
+        System.out.print(lookups.describeCaches());
+        verbose = true;
+    }
+
+    /**
+     * Пакетний аналіз: names містить повтори, щоб було видно об'єднання запитів з однаковим ID.
+     * Результати друкуються в міру готовності.
+     */
+    private static void runBatchAnalysis(int count, PipelineExecutors executors) {
+        List<String> names = new ArrayList<>(count);
+        int distinct = Math.max(1, count / 2);
+        for (int i = 0; i < count; i++) {
+            names.add("Program-" + (i % distinct));
+        }
+
+        System.out.println("Пакетний аналіз " + count + " програм (" + distinct + " різних)...");
+        long start = System.nanoTime();
+        try (SoftwareAnalyzer analyzer = new SoftwareAnalyzer(executors)) {
+            int[] received = {0};
+            analyzer.analyzeAll(names).forEach(stats -> {
+                if (received[0]++ < 10) {
+                    System.out.println("  " + stats);
+                }
+            });
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.println("---------------------------");
+            System.out.printf("Отримано результатів: %d за %.2f с (%.0f аналізів/с)%n", received[0], seconds, received[0] / seconds);
+            System.out.println("Запитів: " + analyzer.getRequestCount() + ", об'єднано з уже запущеними: " + analyzer.getCoalescedCount());
+            System.out.println("Пакетні виклики: " + analyzer.describeBatches());
+        }
+    }
+
+    // Два сервери з різним розподілом затримки; scaleMillis - медіана EU (US повільніший, але з меншим хвостом)
+    private static List<Replica<String>> standInServers(double scaleMillis) {
+        return List.of(
+                new StandInServer("Server EU", scaleMillis, 0.3, 0.05, (long) (scaleMillis * 10)),
+                new StandInServer("Server US", scaleMillis * 1.5, 0.2, 0.01, (long) (scaleMillis * 6)));
+    }
+
+    /**
+     * Порівняння anyOf (запит до обох серверів) і HedgedRequester на requests запитах, по 10 одночасно.
+     */
+    private static void runHedgeComparison(int requests, PipelineExecutors executors) {
+        final int concurrency = 10;
+        List<Replica<String>> replicas = standInServers(20);
+        replicas.forEach(replica -> System.out.println("  " + replica));
+
+        LatencyHistogram anyOfLatency = new LatencyHistogram();
+        for (int done = 0; done < requests; done += concurrency) {
+            List<CompletableFuture<Object>> round = new ArrayList<>();
+            for (int i = 0; i < Math.min(concurrency, requests - done); i++) {
+                long start = System.nanoTime();
+                CompletableFuture<?>[] all = replicas.stream()
+                        .map(replica -> CompletableFuture.supplyAsync(() -> callUnchecked(replica), executors.blocking()))
+                        .toArray(CompletableFuture[]::new);
+                round.add(CompletableFuture.anyOf(all).whenComplete((v, e) -> anyOfLatency.record(System.nanoTime() - start)));
+            }
+            round.forEach(CompletableFuture::join);
+        }
+        System.out.println("anyOf:  " + anyOfLatency + ", звернень до серверів: " + requests * replicas.size());
+
+        try (HedgedRequester<String> hedged = new HedgedRequester<>(replicas, executors.blocking(), 0.95, 50)) {
+            LatencyHistogram hedgedLatency = new LatencyHistogram();
+            for (int done = 0; done < requests; done += concurrency) {
+                List<CompletableFuture<String>> round = new ArrayList<>();
+                for (int i = 0; i < Math.min(concurrency, requests - done); i++) {
+                    long start = System.nanoTime();
+                    round.add(hedged.call().whenComplete((v, e) -> hedgedLatency.record(System.nanoTime() - start)));
+                }
+                round.forEach(CompletableFuture::join);
+            }
+            System.out.println("hedged: " + hedgedLatency + ", звернень до серверів: " + hedged.getAttemptCount());
+            System.out.println("  " + hedged);
+            for (int i = 0; i < replicas.size(); i++) {
+                System.out.println("  " + replicas.get(i).name() + ": " + hedged.getHistogram(i));
+            }
+        }
+    }
+
+    private static <T> T callUnchecked(Replica<T> replica) {
+        try {
+            return replica.call();
+        } catch (Exception e) {
+            throw new CompletionException(e);
         }
     }
 
     // --- Допоміжні методи для імітації роботи ---
 
-    private static int getSoftwareId(String name) {
-        simulateDelay(1);
+    static int getSoftwareId(String name) {
+        return getSoftwareId(name, NO_DEADLINE);
+    }
+
+    static int getPrice(int id) {
+        return getPrice(id, NO_DEADLINE);
+    }
+
+    static int getFunctionalityScore(int id) {
+        return getFunctionalityScore(id, NO_DEADLINE);
+    }
+
+    static String getSupportInfo(int id) {
+        return getSupportInfo(id, NO_DEADLINE);
+    }
+
+    // --- Версії з бюджетом часу: "віддалений" виклик отримує залишок deadline як таймаут ---
+
+    static int getSoftwareId(String name, Deadline deadline) {
+        simulateDelay(1, deadline);
         return Math.abs(name.hashCode() % 1000);
     }
 
-    private static int getPrice(int id) {
-        simulateDelay(1);
-        System.out.println("-> Ціна отримана");
+    static int getPrice(int id, Deadline deadline) {
+        simulateDelay(1, deadline);
+        log("-> Ціна отримана");
         return ThreadLocalRandom.current().nextInt(100, 600); // Випадкова ціна
     }
 
-    private static int getFunctionalityScore(int id) {
-        simulateDelay(2); // Функціонал аналізується довше
-        System.out.println("-> Функціональність оцінена");
+    static int getFunctionalityScore(int id, Deadline deadline) {
+        simulateDelay(2, deadline); // Функціонал аналізується довше
+        log("-> Функціональність оцінена");
         return ThreadLocalRandom.current().nextInt(1, 11); // Оцінка 1-10
     }
 
-    private static String getSupportInfo(int id) {
-        simulateDelay(1);
-        System.out.println("-> Дані про підтримку отримані");
+    static String getSupportInfo(int id, Deadline deadline) {
+        simulateDelay(1, deadline);
+        log("-> Дані про підтримку отримані");
         return ThreadLocalRandom.current().nextBoolean() ? "24/7 Support" : "Email Only";
     }
 
+    // --- Пакетні версії: одна затримка на весь набір ID, як у багатоключового віддаленого виклику ---
+
+    static Map<String, Integer> getSoftwareIds(Set<String> names) {
+        simulateDelay(1);
+        Map<String, Integer> ids = new HashMap<>();
+        for (String name : names) {
+            ids.put(name, Math.abs(name.hashCode() % 1000));
+        }
+        return ids;
+    }
+
+    static Map<Integer, Integer> getPrices(Set<Integer> ids) {
+        simulateDelay(1);
+        log("-> Ціни отримано для " + ids.size() + " програм");
+        Map<Integer, Integer> prices = new HashMap<>();
+        for (Integer id : ids) {
+            prices.put(id, ThreadLocalRandom.current().nextInt(100, 600));
+        }
+        return prices;
+    }
+
+    static Map<Integer, Integer> getFunctionalityScores(Set<Integer> ids) {
+        simulateDelay(2);
+        log("-> Функціональність оцінено для " + ids.size() + " програм");
+        Map<Integer, Integer> scores = new HashMap<>();
+        for (Integer id : ids) {
+            scores.put(id, ThreadLocalRandom.current().nextInt(1, 11));
+        }
+        return scores;
+    }
+
+    static Map<Integer, String> getSupportInfos(Set<Integer> ids) {
+        simulateDelay(1);
+        log("-> Дані про підтримку отримано для " + ids.size() + " програм");
+        Map<Integer, String> support = new HashMap<>();
+        for (Integer id : ids) {
+            support.put(id, ThreadLocalRandom.current().nextBoolean() ? "24/7 Support" : "Email Only");
+        }
+        return support;
+    }
+
+    private static void log(String message) {
+        if (verbose) {
+            System.out.println(message);
+        }
+    }
+
     private static void simulateDelay(int seconds) {
         try {
             TimeUnit.SECONDS.sleep(seconds);
@@ -134,6 +426,21 @@ public class CompletableFutureDemo {
         }
     }
 
+    // Виклик з таймаутом: якщо відповідь прийде пізніше за залишок часу, чекаємо лише залишок і здаємося
+    private static void simulateDelay(int seconds, Deadline deadline) {
+        long delayMillis = TimeUnit.SECONDS.toMillis(seconds);
+        long budgetMillis = deadline.remainingMillis();
+        try {
+            TimeUnit.MILLISECONDS.sleep(Math.min(delayMillis, budgetMillis));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Виклик перервано");
+        }
+        if (delayMillis > budgetMillis) {
+            throw new CompletionException(new TimeoutException("Не вклалися у бюджет " + budgetMillis + " мс"));
+        }
+    }
+
     // Клас для зберігання результатів (OOP)
     static class SoftwareStats {
         String name;
@@ -154,4 +461,33 @@ public class CompletableFutureDemo {
                     name, price, functionalityScore, support);
         }
     }
-}
\ No newline at end of file
+
+    // Результат аналізу з крайнім терміном: null - критерій не встиг
+    static class PartialSoftwareStats {
+        final String name;
+        final Integer price;
+        final Integer functionalityScore;
+        final String support;
+
+        PartialSoftwareStats(String name, Integer price, Integer functionalityScore, String support) {
+            this.name = name;
+            this.price = price;
+            this.functionalityScore = functionalityScore;
+            this.support = support;
+        }
+
+        boolean isComplete() {
+            return price != null && functionalityScore != null && support != null;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Програма: %s | Ціна: %s | Функціонал: %s | Підтримка: %s%s",
+                    name,
+                    price == null ? "не встигли" : "$" + price,
+                    functionalityScore == null ? "не встигли" : functionalityScore + "/10",
+                    support == null ? "не встигли" : support,
+                    isComplete() ? "" : " (частковий результат)");
+        }
+    }
+}
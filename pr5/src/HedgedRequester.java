@@ -0,0 +1,212 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Вибір репліки за затримкою з "підстрахувальним" (hedged) запитом.
+ * Замість anyOf, що завжди надсилає запит усім реплікам, запит іде до найшвидшої (за p50) репліки;
+ * друга отримує копію лише якщо відповіді немає довше за p95 першої. Щойно одна відповідь отримана,
+ * інший запит скасовується з перериванням потоку. Якщо репліка повертає помилку, одразу пробується наступна.
+ * Для кожної репліки ведеться LatencyHistogram; поки зразків менше MIN_SAMPLES, використовується defaultHedgeDelayMillis.
+ * У гістограму потрапляють лише справжні відповіді: час скасованого звернення - лише нижня межа затримки,
+ * і з ним повільна репліка виглядала б швидшою, ніж є. Такі звернення рахуються окремо (censored):
+ * репліка, що здебільшого програє, іде в кінець черги, а не вважається "ще не дослідженою".
+ */
+class HedgedRequester<T> implements AutoCloseable {
+
+    public static final int MIN_SAMPLES = 20;
+
+    private final List<Replica<T>> replicas;
+    private final LatencyHistogram[] histograms;
+    private final LongAdder[] censored;
+    private final Executor executor;
+    private final double hedgePercentile;
+    private final long defaultHedgeDelayNanos;
+    private final ScheduledExecutorService timer;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+
+    /**
+     * @param executor виконавець блокуючих викликів; скасування працює через переривання його потоків
+     */
+    public HedgedRequester(List<Replica<T>> replicas, Executor executor, double hedgePercentile, long defaultHedgeDelayMillis) {
+        if (replicas.isEmpty()) {
+            throw new IllegalArgumentException("Потрібна хоча б одна репліка");
+        }
+        this.replicas = new ArrayList<>(replicas);
+        this.histograms = new LatencyHistogram[replicas.size()];
+        this.censored = new LongAdder[replicas.size()];
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+            censored[i] = new LongAdder();
+        }
+        this.executor = executor;
+        this.hedgePercentile = hedgePercentile;
+        this.defaultHedgeDelayNanos = TimeUnit.MILLISECONDS.toNanos(defaultHedgeDelayMillis);
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hedge-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public CompletableFuture<T> call() {
+        requests.increment();
+        Call call = new Call(rankReplicas());
+        call.startNext(false);
+        return call.result;
+    }
+
+    public LatencyHistogram getHistogram(int replica) {
+        return histograms[replica];
+    }
+
+    /**
+     * Скасовані звернення до репліки: відповіді не дочекалися, тож у гістограму вони не потрапили.
+     */
+    public long getCensoredCount(int replica) {
+        return censored[replica].sum();
+    }
+
+    public List<Replica<T>> getReplicas() {
+        return replicas;
+    }
+
+    public long getAttemptCount() {
+        return attempts.sum();
+    }
+
+    public long getHedgeCount() {
+        return hedges.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("запитів: %d, звернень до реплік: %d, підстрахувань: %d (виграли: %d), скасовано: %d",
+                requests.sum(), attempts.sum(), hedges.sum(), hedgeWins.sum(), cancelled.sum());
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+    }
+
+    // Спочатку репліки без достатньої статистики (щоб її зібрати), далі - за зростанням p50,
+    // в кінці - ті, чиї звернення здебільшого скасовувались (вони повільніші за будь-яку відому затримку)
+    private int[] rankReplicas() {
+        Integer[] order = new Integer[replicas.size()];
+        long[] score = new long[order.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+            long samples = histograms[i].getCount();
+            if (samples >= MIN_SAMPLES) {
+                score[i] = histograms[i].percentile(0.5);
+            } else {
+                score[i] = samples + censored[i].sum() < MIN_SAMPLES ? -1 : Long.MAX_VALUE;
+            }
+        }
+        Arrays.sort(order, Comparator.comparingLong(i -> score[i]));
+        return Arrays.stream(order).mapToInt(Integer::intValue).toArray();
+    }
+
+    private long hedgeDelayNanos(int replica) {
+        LatencyHistogram histogram = histograms[replica];
+        return histogram.getCount() < MIN_SAMPLES ? defaultHedgeDelayNanos : histogram.percentile(hedgePercentile);
+    }
+
+    // Один логічний запит: до order.length звернень до реплік, перше успішне завершує result
+    private class Call {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final int[] order;
+        // Захищено this
+        final List<FutureTask<Void>> tasks = new ArrayList<>(2);
+        int next;
+        int running;
+        ScheduledFuture<?> hedgeTimer;
+
+        Call(int[] order) {
+            this.order = order;
+            // Викликаючий код відмовився від результату - скасовуємо всі звернення
+            result.whenComplete((value, error) -> {
+                if (result.isCancelled()) cancelOthers(null);
+            });
+        }
+
+        synchronized void startNext(boolean hedge) {
+            if (result.isDone() || next >= order.length) return;
+            int replica = order[next++];
+            running++;
+            attempts.increment();
+            if (hedge) hedges.increment();
+
+            long start = System.nanoTime();
+            AtomicReference<FutureTask<Void>> self = new AtomicReference<>();
+            FutureTask<Void> task = new FutureTask<>(() -> {
+                try {
+                    T value = replicas.get(replica).call();
+                    histograms[replica].record(System.nanoTime() - start);
+                    if (result.complete(value)) {
+                        if (hedge) hedgeWins.increment();
+                        cancelOthers(self.get());
+                    }
+                } catch (InterruptedException e) {
+                    // Програв і був скасований - затримку не записуємо, лише рахуємо
+                    censored[replica].increment();
+                } catch (Exception e) {
+                    onFailure(e);
+                }
+            }, null);
+            self.set(task);
+            tasks.add(task);
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                // Звернення не відбулося; якщо інших немає, запит завершується помилкою, а не висить вічно
+                tasks.remove(task);
+                running--;
+                if (running == 0) result.completeExceptionally(e);
+                return;
+            }
+
+            // Підстраховка: якщо за p95 цієї репліки відповіді немає, звертаємося до наступної
+            if (next < order.length) {
+                hedgeTimer = timer.schedule(() -> startNext(true), hedgeDelayNanos(replica), TimeUnit.NANOSECONDS);
+            }
+        }
+
+        synchronized void onFailure(Exception error) {
+            running--;
+            if (next < order.length) {
+                if (hedgeTimer != null) hedgeTimer.cancel(false);
+                startNext(true);
+            } else if (running == 0) {
+                result.completeExceptionally(error);
+            }
+        }
+
+        synchronized void cancelOthers(FutureTask<Void> winner) {
+            if (hedgeTimer != null) hedgeTimer.cancel(false);
+            next = order.length; // нових звернень більше не буде
+            for (FutureTask<Void> task : tasks) {
+                if (task != winner && task.cancel(true)) {
+                    cancelled.increment();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Збирає окремі запити get(key) у пакети і виконує один пакетний виклик loader на весь пакет.
+ * Пакет відправляється через windowMillis після першого запиту або одразу, як набереться maxBatchSize ключів.
+ * Повторні запити того самого ключа в межах одного вікна отримують той самий future.
+ */
+class MicroBatcher<K, V> implements AutoCloseable {
+
+    private final Function<Set<K>, Map<K, V>> loader;
+    private final Executor executor;
+    private final long windowMillis;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService timer;
+
+    // Поточне вікно; захищено this
+    private Map<K, CompletableFuture<V>> pending = new HashMap<>();
+    private long generation;
+    private boolean closed;
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder keys = new LongAdder();
+
+    /**
+     * @param loader   пакетний виклик: для кожного ключа з набору повертає значення (відсутній ключ - помилка)
+     * @param executor де виконувати loader (зазвичай виконавець блокуючих етапів)
+     */
+    public MicroBatcher(Function<Set<K>, Map<K, V>> loader, Executor executor, long windowMillis, int maxBatchSize) {
+        this.loader = loader;
+        this.executor = executor;
+        this.windowMillis = windowMillis;
+        this.maxBatchSize = maxBatchSize;
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "micro-batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public CompletableFuture<V> get(K key) {
+        Map<K, CompletableFuture<V>> full = null;
+        CompletableFuture<V> future;
+        synchronized (this) {
+            if (closed) {
+                return CompletableFuture.failedFuture(new IllegalStateException("MicroBatcher закрито"));
+            }
+            future = pending.get(key);
+            if (future != null) {
+                return future;
+            }
+            future = new CompletableFuture<>();
+            pending.put(key, future);
+            if (pending.size() == 1) {
+                long window = generation;
+                try {
+                    timer.schedule(() -> flush(window), windowMillis, TimeUnit.MILLISECONDS);
+                } catch (RejectedExecutionException e) {
+                    // Без таймера вікно ніколи не відправиться - не лишаємо future у pending
+                    pending.remove(key);
+                    future.completeExceptionally(e);
+                    return future;
+                }
+            }
+            if (pending.size() >= maxBatchSize) {
+                full = takePending();
+            }
+        }
+        if (full != null) {
+            dispatch(full);
+        }
+        return future;
+    }
+
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    public long getKeyCount() {
+        return keys.sum();
+    }
+
+    // Уже запланована відправка вікна ще виконається: shutdown() не скасовує відкладені задачі
+    @Override
+    public synchronized void close() {
+        closed = true;
+        timer.shutdown();
+    }
+
+    private void flush(long window) {
+        Map<K, CompletableFuture<V>> batch;
+        synchronized (this) {
+            // Вікно вже відправлено через maxBatchSize - таймер належить до попереднього вікна
+            if (window != generation || pending.isEmpty()) return;
+            batch = takePending();
+        }
+        dispatch(batch);
+    }
+
+    private Map<K, CompletableFuture<V>> takePending() {
+        Map<K, CompletableFuture<V>> batch = pending;
+        pending = new HashMap<>();
+        generation++;
+        return batch;
+    }
+
+    private void dispatch(Map<K, CompletableFuture<V>> batch) {
+        batches.increment();
+        keys.add(batch.size());
+        try {
+            executor.execute(() -> load(batch));
+        } catch (RejectedExecutionException e) {
+            // Виконавець зупинено або переповнено - інакше ці future не завершилися б ніколи
+            batch.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    private void load(Map<K, CompletableFuture<V>> batch) {
+        Map<K, V> values;
+        try {
+            values = loader.apply(batch.keySet());
+        } catch (Throwable e) {
+            batch.values().forEach(future -> future.completeExceptionally(e));
+            return;
+        }
+        batch.forEach((key, future) -> {
+            V value = values.get(key);
+            if (value != null) {
+                future.complete(value);
+            } else {
+                future.completeExceptionally(new NoSuchElementException("Немає значення для ключа " + key));
+            }
+        });
+    }
+}
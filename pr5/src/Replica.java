@@ -0,0 +1,10 @@
+/**
+ * Одна з реплік сервісу, що повертають однаковий результат. call() блокується до відповіді
+ * і має реагувати на переривання потоку - так HedgedRequester скасовує запит, що програв.
+ */
+interface Replica<T> {
+
+    String name();
+
+    T call() throws Exception;
+}
@@ -0,0 +1,121 @@
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Пакетний аналіз програм.
+ * - Запити ID та кожного з трьох критеріїв збираються у MicroBatcher і виконуються одним багатоключовим
+ *   викликом на вікно, замість окремого "віддаленого" виклику на кожну програму.
+ * - Поки аналіз програми з певним ID виконується, інші запити з тим самим ID приєднуються до нього
+ *   замість повторного завантаження.
+ */
+class SoftwareAnalyzer implements AutoCloseable {
+
+    public static final long DEFAULT_WINDOW_MILLIS = 20;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 500;
+
+    private final PipelineExecutors executors;
+    private final MicroBatcher<String, Integer> ids;
+    private final MicroBatcher<Integer, Integer> prices;
+    private final MicroBatcher<Integer, Integer> functionality;
+    private final MicroBatcher<Integer, String> support;
+    private final ConcurrentHashMap<Integer, CompletableFuture<CompletableFutureDemo.SoftwareStats>> inFlight =
+            new ConcurrentHashMap<>();
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    public SoftwareAnalyzer(PipelineExecutors executors) {
+        this(executors, DEFAULT_WINDOW_MILLIS, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    public SoftwareAnalyzer(PipelineExecutors executors, long windowMillis, int maxBatchSize) {
+        this.executors = executors;
+        this.ids = new MicroBatcher<>(CompletableFutureDemo::getSoftwareIds, executors.blocking(), windowMillis, maxBatchSize);
+        this.prices = new MicroBatcher<>(CompletableFutureDemo::getPrices, executors.blocking(), windowMillis, maxBatchSize);
+        this.functionality = new MicroBatcher<>(CompletableFutureDemo::getFunctionalityScores, executors.blocking(),
+                windowMillis, maxBatchSize);
+        this.support = new MicroBatcher<>(CompletableFutureDemo::getSupportInfos, executors.blocking(), windowMillis, maxBatchSize);
+    }
+
+    public CompletableFuture<CompletableFutureDemo.SoftwareStats> analyze(String name) {
+        requests.increment();
+        return ids.get(name).thenCompose(id -> analyzeId(id, name));
+    }
+
+    /**
+     * Аналізує всі програми і повертає результати у порядку готовності (а не у порядку names).
+     * Потік блокується на кожному наступному елементі, поки той не буде готовий.
+     */
+    public Stream<CompletableFutureDemo.SoftwareStats> analyzeAll(List<String> names) {
+        BlockingQueue<CompletableFuture<CompletableFutureDemo.SoftwareStats>> completed = new LinkedBlockingQueue<>();
+        for (String name : names) {
+            CompletableFuture<CompletableFutureDemo.SoftwareStats> future = analyze(name);
+            future.whenComplete((stats, error) -> completed.add(future));
+        }
+        return Stream.generate(() -> takeNext(completed)).limit(names.size());
+    }
+
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    public String describeBatches() {
+        return String.format("ID: %d викликів / %d ключів, ціна: %d / %d, функціонал: %d / %d, підтримка: %d / %d",
+                ids.getBatchCount(), ids.getKeyCount(), prices.getBatchCount(), prices.getKeyCount(),
+                functionality.getBatchCount(), functionality.getKeyCount(), support.getBatchCount(), support.getKeyCount());
+    }
+
+    @Override
+    public void close() {
+        ids.close();
+        prices.close();
+        functionality.close();
+        support.close();
+    }
+
+    private CompletableFuture<CompletableFutureDemo.SoftwareStats> analyzeId(int id, String name) {
+        CompletableFuture<CompletableFutureDemo.SoftwareStats> created = new CompletableFuture<>();
+        CompletableFuture<CompletableFutureDemo.SoftwareStats> existing = inFlight.putIfAbsent(id, created);
+        if (existing != null) {
+            // Той самий ID вже аналізується - беремо його критерії, але зі своєю назвою
+            coalesced.increment();
+            return existing.thenApply(stats -> new CompletableFutureDemo.SoftwareStats(
+                    name, stats.price, stats.functionalityScore, stats.support));
+        }
+
+        CompletableFuture<Integer> priceTask = prices.get(id);
+        CompletableFuture<Integer> functionalityTask = functionality.get(id);
+        CompletableFuture<String> supportTask = support.get(id);
+        CompletableFuture.allOf(priceTask, functionalityTask, supportTask)
+                .thenApplyAsync(v -> new CompletableFutureDemo.SoftwareStats(
+                        name, priceTask.join(), functionalityTask.join(), supportTask.join()), executors.cpu())
+                .whenComplete((stats, error) -> {
+                    inFlight.remove(id, created);
+                    if (error != null) {
+                        created.completeExceptionally(error);
+                    } else {
+                        created.complete(stats);
+                    }
+                });
+        return created;
+    }
+
+    private static <T> T takeNext(BlockingQueue<CompletableFuture<T>> completed) {
+        try {
+            return completed.take().join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Джерела даних для аналізу програми: ID за назвою та три критерії за ID.
+ * Методи отримання даних у CompletableFutureDemo не змінюються - кеш лише обгортає їх.
+ */
+class SoftwareLookups {
+
+    final AsyncLookup<String, Integer> softwareId;
+    final AsyncLookup<Integer, Integer> price;
+    final AsyncLookup<Integer, Integer> functionality;
+    final AsyncLookup<Integer, String> support;
+    private final List<AsyncLoadingCache<?, ?>> caches;
+
+    private SoftwareLookups(AsyncLookup<String, Integer> softwareId, AsyncLookup<Integer, Integer> price,
+                            AsyncLookup<Integer, Integer> functionality, AsyncLookup<Integer, String> support,
+                            List<AsyncLoadingCache<?, ?>> caches) {
+        this.softwareId = softwareId;
+        this.price = price;
+        this.functionality = functionality;
+        this.support = support;
+        this.caches = caches;
+    }
+
+    /**
+     * Без кешування: кожен аналіз викликає всі чотири методи.
+     */
+    static SoftwareLookups direct(Executor blocking) {
+        return new SoftwareLookups(
+                AsyncLookup.direct(CompletableFutureDemo::getSoftwareId, blocking),
+                AsyncLookup.direct(CompletableFutureDemo::getPrice, blocking),
+                AsyncLookup.direct(CompletableFutureDemo::getFunctionalityScore, blocking),
+                AsyncLookup.direct(CompletableFutureDemo::getSupportInfo, blocking),
+                List.of());
+    }
+
+    /**
+     * Кожне джерело обгорнуто окремим AsyncLoadingCache з однаковими параметрами.
+     */
+    static SoftwareLookups cached(Executor blocking, int maximumSize, long ttlMillis, long refreshAfterMillis) {
+        AsyncLoadingCache<String, Integer> ids = new AsyncLoadingCache<>(CompletableFutureDemo::getSoftwareId,
+                blocking, maximumSize, ttlMillis, refreshAfterMillis);
+        AsyncLoadingCache<Integer, Integer> prices = new AsyncLoadingCache<>(CompletableFutureDemo::getPrice,
+                blocking, maximumSize, ttlMillis, refreshAfterMillis);
+        AsyncLoadingCache<Integer, Integer> scores = new AsyncLoadingCache<>(CompletableFutureDemo::getFunctionalityScore,
+                blocking, maximumSize, ttlMillis, refreshAfterMillis);
+        AsyncLoadingCache<Integer, String> support = new AsyncLoadingCache<>(CompletableFutureDemo::getSupportInfo,
+                blocking, maximumSize, ttlMillis, refreshAfterMillis);
+        return new SoftwareLookups(ids, prices, scores, support, List.of(ids, prices, scores, support));
+    }
+
+    String describeCaches() {
+        if (caches.isEmpty()) return String.format("Кеш вимкнено%n");
+        String[] names = {"ID", "ціна", "функціонал", "підтримка"};
+        StringBuilder sb = new StringBuilder(String.format("Кеш:%n"));
+        for (int i = 0; i < caches.size(); i++) {
+            sb.append(String.format("  %-10s %s%n", names[i], caches.get(i)));
+        }
+        return sb.toString();
+    }
+}
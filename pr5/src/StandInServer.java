@@ -0,0 +1,50 @@
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Локальна заміна віддаленого сервера з налаштовуваним розподілом затримки:
+ * логнормальна основна частина (медіана medianMillis, розкид sigma) і з ймовірністю slowProbability
+ * "хвіст" тривалістю slowMillis (GC-пауза, перевантажений вузол).
+ * Очікування переривається, тому скасований через cancel(true) запит звільняє потік одразу.
+ */
+class StandInServer implements Replica<String> {
+
+    private final String name;
+    private final double medianMillis;
+    private final double sigma;
+    private final double slowProbability;
+    private final long slowMillis;
+
+    public StandInServer(String name, double medianMillis, double sigma, double slowProbability, long slowMillis) {
+        this.name = name;
+        this.medianMillis = medianMillis;
+        this.sigma = sigma;
+        this.slowProbability = slowProbability;
+        this.slowMillis = slowMillis;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public String call() throws InterruptedException {
+        TimeUnit.MICROSECONDS.sleep(sampleDelayMicros());
+        return name;
+    }
+
+    long sampleDelayMicros() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextDouble() < slowProbability) {
+            return slowMillis * 1000;
+        }
+        return (long) (medianMillis * 1000 * Math.exp(sigma * random.nextGaussian()));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s (медіана %.0f мс, sigma %.2f, %.0f%% запитів по %d мс)",
+                name, medianMillis, sigma, slowProbability * 100, slowMillis);
+    }
+}
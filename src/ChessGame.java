@@ -1,29 +1,45 @@
-import java.util.concurrent.Semaphore;
+import java.util.Arrays;
+import java.util.List;
 
 
  //Головний клас для запуску симуляції шахової гри.
  //Створює гравців та координує початок і кінець гри.
+ //Ходи обирає ChessSearch - паралельний альфа-бета пошук на всіх ядрах.
+ //
+ //Режим навантаження (без роздумів, лише передача ходу):
+ //  --games=N     - кількість одночасних партій
+ //  --players=P   - гравців у кожній партії (за замовчуванням 2)
+ //  --moves=M     - ходів кожного гравця (за замовчуванням 1000)
+ //  --event-loop  - партії у невеликому пулі потоків замість потоку на гравця
+ //  --threads=K   - розмір пулу для --event-loop (за замовчуванням кількість ядер)
 
 public class ChessGame {
 
     public static void main(String[] args) {
-        System.out.println("👑 Починаємо шахову партію між двома гравцями! 👑\n");
+        List<String> options = Arrays.asList(args);
+        int games = (int) optionValue(options, "--games=", 0);
+        if (games > 0) {
+            runLoad(games, (int) optionValue(options, "--players=", 2), (int) optionValue(options, "--moves=", 1000),
+                    options.contains("--event-loop"),
+                    (int) optionValue(options, "--threads=", Runtime.getRuntime().availableProcessors()));
+            return;
+        }
 
-        // Створюємо два семафори.
-        // Одночасно існує лише один ключ.
+        System.out.println("👑 Починаємо шахову партію між двома гравцями! 👑\n");
 
-        // whiteSemaphore(1) - Гравець білими має ключ на початку гри (1 дозвіл).
-        Semaphore whiteSemaphore = new Semaphore(1);
+        // Спільні для партії дошка і пошук: гравці шукають по черзі, тож один пул потоків пошуку
+        // і одна таблиця транспозицій обслуговують обох
+        ChessPosition board = ChessPosition.startPosition();
+        ChessSearch engine = new ChessSearch(Runtime.getRuntime().availableProcessors(), 20);
 
-        // blackSemaphore(0) - Гравець чорними чекає, поки білі передадуть йому ключ (0 дозволів).
-        Semaphore blackSemaphore = new Semaphore(0);
+        // Коло передачі ходу на двох гравців.
+        // Одночасно хід має лише один гравець; на початку - гравець 0 (білі).
+        TurnRing ring = new TurnRing(2);
 
         // Створюємо двох гравців.
-        // Гравець Білими чекає на "білий" семафор і після ходу звільняє "чорний".
-        ChessPlayer whitePlayer = new ChessPlayer("Гравець Білими", whiteSemaphore, blackSemaphore);
-
-        // Гравець Чорними чекає на "чорний" семафор і після ходу звільняє "білий".
-        ChessPlayer blackPlayer = new ChessPlayer("Гравець Чорними", blackSemaphore, whiteSemaphore);
+        // Гравець Білими ходить першим і після ходу передає хід чорним, чорні - знову білим.
+        ChessPlayer whitePlayer = new ChessPlayer("Гравець Білими", ring, 0, board, engine);
+        ChessPlayer blackPlayer = new ChessPlayer("Гравець Чорними", ring, 1, board, engine);
 
         // Створюємо потоки на основі наших гравців
         Thread whiteThread = new Thread(whitePlayer);
@@ -41,8 +57,35 @@ public class ChessGame {
         } catch (InterruptedException e) {
             System.err.println("Головний потік був перерваний.");
             Thread.currentThread().interrupt();
+        } finally {
+            engine.close();
         }
 
         System.out.println("\n🎉🎉🎉 Гра завершена! 🎉🎉🎉");
     }
-}
\ No newline at end of file
+
+    private static void runLoad(int games, int players, int moves, boolean eventLoop, int threads) {
+        System.out.println("Партій: " + games + ", гравців у партії: " + players + ", ходів кожного: " + moves
+                + (eventLoop ? ", пул на " + threads + " потоків"
+                : TurnScheduler.isVirtualAvailable() ? ", віртуальний потік на гравця" : ", потік на гравця"));
+        try {
+            TurnScheduler.Result result = eventLoop
+                    ? TurnScheduler.runEventLoop(games, players, moves, TurnAction.NONE, threads, 64)
+                    : TurnScheduler.runThreaded(games, players, moves, TurnAction.NONE);
+            System.out.println(result);
+        } catch (InterruptedException e) {
+            System.err.println("Головний потік був перерваний.");
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Значення опції виду --name=число або defaultValue, якщо опцію не задано
+    private static long optionValue(List<String> options, String prefix, long defaultValue) {
+        for (String option : options) {
+            if (option.startsWith(prefix)) {
+                return Long.parseLong(option.substring(prefix.length()));
+            }
+        }
+        return defaultValue;
+    }
+}
@@ -1,23 +1,29 @@
-import java.util.concurrent.Semaphore;
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
 
 
  //Клас, що представляє гравця в шахи.
  //Кожен гравець виконується у власному потоці.
  //Реалізує інтерфейс Runnable.
+ //Дошка спільна для обох гравців: змінює її лише той, чий хід, а TurnRing передає зміни наступному
+ //(запис volatile turn після ходу - happens-before для того, хто цей хід отримав).
 
 public class ChessPlayer implements Runnable {
 
     private final String name; // Ім'я гравця (наприклад, "Гравець Білими")
-    private final Semaphore mySemaphore; // Семафор для отримання дозволу на хід
-    private final Semaphore opponentSemaphore; // Семафор суперника, якому потрібно передати хід
+    private final TurnRing ring; // Спільне для партії коло передачі ходу
+    private final int party; // Номер гравця у колі (0 - ходить першим)
+    private final ChessPosition board; // Спільна дошка партії
+    private final ChessSearch engine; // Пошук ходу (потоки ForkJoinPool і таблиця транспозицій)
     private static final int MAX_MOVES = 5; // Кількість ходів для кожного гравця для симуляції
-    private final Random random = new Random(); // Для імітації часу на роздуми
+    private final Random random = new Random(); // Для вибору часу на роздуми
 
-    public ChessPlayer(String name, Semaphore mySemaphore, Semaphore opponentSemaphore) {
+    public ChessPlayer(String name, TurnRing ring, int party, ChessPosition board, ChessSearch engine) {
         this.name = name;
-        this.mySemaphore = mySemaphore;
-        this.opponentSemaphore = opponentSemaphore;
+        this.ring = ring;
+        this.party = party;
+        this.board = board;
+        this.engine = engine;
     }
 
 
@@ -26,39 +32,51 @@ public class ChessPlayer implements Runnable {
 
     @Override
     public void run() {
-        // Гра триває, поки кожен гравець не зробить MAX_MOVES ходів
-        for (int i = 1; i <= MAX_MOVES; i++) {
-            try {
-                // 1. Очікування своєї черги (спроба отримати дозвіл від семафора)
+        boolean finished = false;
+        try {
+            // Гра триває, поки кожен гравець не зробить MAX_MOVES ходів
+            for (int i = 1; i <= MAX_MOVES; i++) {
+                // 1. Очікування своєї черги (потік паркується, доки попередній гравець не передасть хід)
                 System.out.println(name + " очікує на свій хід...");
-                mySemaphore.acquire(); // Блокує потік, доки не буде отримано дозвіл
+                if (!ring.awaitTurn(party)) {
+                    System.out.println(name + ": партію завершено іншим гравцем.");
+                    return;
+                }
 
                 // 2. Виконання ходу
                 System.out.println("------------------------------------------");
                 System.out.println("Зараз хід робить " + name + " (Хід #" + i + ")");
 
-                // Імітація роздумів над ходом
+                // Роздуми над ходом: пошук, обмежений часом на хід
                 int thinkingTime = random.nextInt(3000) + 1000; // від 1 до 4 секунд
-                System.out.println(name + " думає " + thinkingTime / 1000.0 + " секунд...");
-                Thread.sleep(thinkingTime); // Призупиняємо потік, імітуючи роздуми
+                System.out.println(name + " думає до " + thinkingTime / 1000.0 + " секунд...");
+                ChessSearch.Result result = engine.search(board, TimeUnit.MILLISECONDS.toNanos(thinkingTime));
+                if (result.bestMove == 0) {
+                    // Ходів немає - партія закінчена для обох гравців
+                    System.out.println((board.inCheck() ? "♚ Мат! " : "Пат! ") + name + " не має ходів.");
+                    return;
+                }
+                board.makeMove(result.bestMove);
 
-                System.out.println("✅ " + name + " зробив свій хід!");
+                System.out.println("✅ " + name + " зробив свій хід: " + ChessPosition.toUci(result.bestMove));
+                System.out.println("   " + result);
                 System.out.println("------------------------------------------\n");
 
-
-            } catch (InterruptedException e) {
-                // Обробка помилки, якщо потік буде перервано під час очікування (sleep або acquire)
-                System.err.println(name + " був перерваний під час гри. Гра завершується.");
-                // Відновлення статусу переривання потоку
-                Thread.currentThread().interrupt();
-                return; // Завершуємо виконання потоку
-            } finally {
-                // 3. Передача ходу супернику (звільнення семафора суперника)
-                // Цей блок виконається завжди, навіть якщо виникла помилка,
-                // щоб уникнути взаємного блокування (deadlock).
-                opponentSemaphore.release();
+                // 3. Передача ходу наступному гравцю - лише після зробленого ходу
+                ring.passTurn(party);
             }
+            finished = true;
+            System.out.println("🏁 " + name + " закінчив свою партію.");
+        } catch (InterruptedException e) {
+            // Обробка помилки, якщо потік буде перервано під час очікування або роздумів.
+            System.err.println(name + " був перерваний під час гри. Гра завершується.");
+            // Відновлення статусу переривання потоку
+            Thread.currentThread().interrupt();
+        } finally {
+            // Будь-який вихід, крім зіграних MAX_MOVES ходів (мат, переривання, помилка пошуку),
+            // закриває партію: хід далі не передається, і суперник виходить з awaitTurn, а не чекає вічно.
+            // Після останнього ходу коло не закривається - суперник ще має зробити свій.
+            if (!finished) ring.close();
         }
-        System.out.println("🏁 " + name + " закінчив свою партію.");
     }
-}
\ No newline at end of file
+}
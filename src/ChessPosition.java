@@ -0,0 +1,504 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Шахова позиція на бітбордах: по одному long на кожен тип фігури кожного кольору (біт i - поле i, a1 = 0, h8 = 63),
+ * плюс масив board для швидкого "яка фігура на полі". Ходи кодуються у int (from | to << 6 | flag << 12),
+ * makeMove/unmakeMove змінюють позицію на місці і ведуть стек для відкату, тому пошук не створює об'єктів.
+ * Хеш Zobrist оновлюється інкрементно - це ключ для TranspositionTable.
+ *
+ * Екземпляр не потокобезпечний: кожен потік пошуку працює зі своєю копією (copy()).
+ */
+class ChessPosition {
+
+    static final int WHITE = 0;
+    static final int BLACK = 1;
+
+    static final int PAWN = 0;
+    static final int KNIGHT = 1;
+    static final int BISHOP = 2;
+    static final int ROOK = 3;
+    static final int QUEEN = 4;
+    static final int KING = 5;
+    static final int EMPTY = -1;
+
+    // Прапорці ходу (4 біти): біт 4 - взяття, біт 8 - перетворення пішака (фігура - KNIGHT + молодші 2 біти)
+    static final int QUIET = 0;
+    static final int DOUBLE_PUSH = 1;
+    static final int KING_CASTLE = 2;
+    static final int QUEEN_CASTLE = 3;
+    static final int CAPTURE = 4;
+    static final int EP_CAPTURE = 5;
+    static final int PROMOTION = 8;
+
+    static final int MAX_MOVES = 256;
+
+    static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private static final long[] KNIGHT_ATTACKS = new long[64];
+    private static final long[] KING_ATTACKS = new long[64];
+    private static final long[][] PAWN_ATTACKS = new long[2][64];
+    // Промені у 8 напрямках; перші 4 - у бік більших індексів (перша перешкода - молодший біт)
+    private static final int[][] DIRECTIONS = {{0, 1}, {1, 0}, {1, 1}, {-1, 1}, {0, -1}, {-1, 0}, {1, -1}, {-1, -1}};
+    private static final long[][] RAYS = new long[8][64];
+    private static final int[] CASTLE_MASK = new int[64];
+
+    private static final long[] Z_PIECE = new long[12 * 64];
+    private static final long[] Z_CASTLE = new long[16];
+    private static final long[] Z_EP_FILE = new long[8];
+    private static final long Z_SIDE;
+
+    static {
+        int[][] knight = {{1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}};
+        for (int sq = 0; sq < 64; sq++) {
+            int file = sq & 7;
+            int rank = sq >>> 3;
+            for (int[] d : knight) {
+                KNIGHT_ATTACKS[sq] |= bit(file + d[0], rank + d[1]);
+            }
+            for (int df = -1; df <= 1; df++) {
+                for (int dr = -1; dr <= 1; dr++) {
+                    if (df != 0 || dr != 0) KING_ATTACKS[sq] |= bit(file + df, rank + dr);
+                }
+            }
+            PAWN_ATTACKS[WHITE][sq] = bit(file - 1, rank + 1) | bit(file + 1, rank + 1);
+            PAWN_ATTACKS[BLACK][sq] = bit(file - 1, rank - 1) | bit(file + 1, rank - 1);
+            for (int dir = 0; dir < 8; dir++) {
+                for (int f = file + DIRECTIONS[dir][0], r = rank + DIRECTIONS[dir][1];
+                     f >= 0 && f < 8 && r >= 0 && r < 8;
+                     f += DIRECTIONS[dir][0], r += DIRECTIONS[dir][1]) {
+                    RAYS[dir][sq] |= 1L << (r * 8 + f);
+                }
+            }
+        }
+
+        // Права на рокіровку: 1 - білі O-O, 2 - білі O-O-O, 4 - чорні O-O, 8 - чорні O-O-O
+        Arrays.fill(CASTLE_MASK, 15);
+        CASTLE_MASK[0] = 15 & ~2;
+        CASTLE_MASK[7] = 15 & ~1;
+        CASTLE_MASK[4] = 15 & ~3;
+        CASTLE_MASK[56] = 15 & ~8;
+        CASTLE_MASK[63] = 15 & ~4;
+        CASTLE_MASK[60] = 15 & ~12;
+
+        // Фіксоване зерно: однакові позиції мають однаковий хеш у всіх запусках
+        SplittableRandom random = new SplittableRandom(0x5EED_C4E55L);
+        for (int i = 0; i < Z_PIECE.length; i++) Z_PIECE[i] = random.nextLong();
+        for (int i = 0; i < Z_CASTLE.length; i++) Z_CASTLE[i] = random.nextLong();
+        for (int i = 0; i < Z_EP_FILE.length; i++) Z_EP_FILE[i] = random.nextLong();
+        Z_SIDE = random.nextLong();
+    }
+
+    private final long[] pieces = new long[12];
+    private final long[] occupied = new long[2];
+    private final int[] board = new int[64];
+    private int side;
+    private int castling;
+    private int epSquare = -1;
+    private int halfmove;
+    private long hash;
+
+    // Стек відкату: стан перед кожним зробленим ходом
+    private int historySize;
+    private long[] hashHistory = new long[256];
+    private int[] capturedHistory = new int[256];
+    private int[] stateHistory = new int[256]; // castling | (epSquare + 1) << 4 | halfmove << 11
+
+    private ChessPosition() {
+        Arrays.fill(board, EMPTY);
+    }
+
+    public static ChessPosition startPosition() {
+        return fromFen(START_FEN);
+    }
+
+    public static ChessPosition fromFen(String fen) {
+        String[] parts = fen.trim().split("\\s+");
+        ChessPosition position = new ChessPosition();
+        int rank = 7;
+        int file = 0;
+        for (char c : parts[0].toCharArray()) {
+            if (c == '/') {
+                rank--;
+                file = 0;
+            } else if (Character.isDigit(c)) {
+                file += c - '0';
+            } else {
+                int type = "pnbrqk".indexOf(Character.toLowerCase(c));
+                if (type < 0) throw new IllegalArgumentException("Невідома фігура у FEN: " + c);
+                position.putPiece(rank * 8 + file, (Character.isUpperCase(c) ? WHITE : BLACK) * 6 + type);
+                file++;
+            }
+        }
+        position.side = parts.length > 1 && parts[1].equals("b") ? BLACK : WHITE;
+        if (position.side == BLACK) position.hash ^= Z_SIDE;
+        if (parts.length > 2) {
+            for (char c : parts[2].toCharArray()) {
+                int right = "KQkq".indexOf(c);
+                if (right >= 0) position.castling |= 1 << right;
+            }
+        }
+        position.hash ^= Z_CASTLE[position.castling];
+        if (parts.length > 3 && !parts[3].equals("-")) {
+            position.epSquare = (parts[3].charAt(1) - '1') * 8 + (parts[3].charAt(0) - 'a');
+            position.hash ^= Z_EP_FILE[position.epSquare & 7];
+        }
+        if (parts.length > 4) position.halfmove = Integer.parseInt(parts[4]);
+        return position;
+    }
+
+    /**
+     * Незалежна копія (разом з історією для визначення повторень) - для окремого потоку пошуку.
+     */
+    public ChessPosition copy() {
+        ChessPosition copy = new ChessPosition();
+        System.arraycopy(pieces, 0, copy.pieces, 0, pieces.length);
+        System.arraycopy(occupied, 0, copy.occupied, 0, occupied.length);
+        System.arraycopy(board, 0, copy.board, 0, board.length);
+        copy.side = side;
+        copy.castling = castling;
+        copy.epSquare = epSquare;
+        copy.halfmove = halfmove;
+        copy.hash = hash;
+        copy.historySize = historySize;
+        copy.hashHistory = hashHistory.clone();
+        copy.capturedHistory = capturedHistory.clone();
+        copy.stateHistory = stateHistory.clone();
+        return copy;
+    }
+
+    public int sideToMove() {
+        return side;
+    }
+
+    public long hash() {
+        return hash;
+    }
+
+    public int pieceAt(int square) {
+        return board[square];
+    }
+
+    public long pieces(int color, int type) {
+        return pieces[color * 6 + type];
+    }
+
+    public long occupied(int color) {
+        return occupied[color];
+    }
+
+    public int halfmoveClock() {
+        return halfmove;
+    }
+
+    public boolean inCheck() {
+        return isAttacked(Long.numberOfTrailingZeros(pieces[side * 6 + KING]), side ^ 1);
+    }
+
+    /**
+     * Поточна позиція вже була (з тим самим гравцем на ходу) після останнього незворотного ходу.
+     */
+    public boolean isRepetition() {
+        for (int i = historySize - 2; i >= 0 && i >= historySize - halfmove; i -= 2) {
+            if (hashHistory[i] == hash) return true;
+        }
+        return false;
+    }
+
+    public boolean isAttacked(int square, int byColor) {
+        int base = byColor * 6;
+        long all = occupied[WHITE] | occupied[BLACK];
+        if ((PAWN_ATTACKS[byColor ^ 1][square] & pieces[base + PAWN]) != 0) return true;
+        if ((KNIGHT_ATTACKS[square] & pieces[base + KNIGHT]) != 0) return true;
+        if ((KING_ATTACKS[square] & pieces[base + KING]) != 0) return true;
+        long queens = pieces[base + QUEEN];
+        if ((bishopAttacks(square, all) & (pieces[base + BISHOP] | queens)) != 0) return true;
+        return (rookAttacks(square, all) & (pieces[base + ROOK] | queens)) != 0;
+    }
+
+    /**
+     * Псевдолегальні ходи (король може лишитися під шахом - це перевіряє makeMove).
+     * tacticalOnly - лише взяття і перетворення у ферзя, для тихого пошуку.
+     */
+    public int generateMoves(int[] moves, boolean tacticalOnly) {
+        int count = 0;
+        int us = side;
+        int them = us ^ 1;
+        long own = occupied[us];
+        long enemy = occupied[them];
+        long all = own | enemy;
+
+        // Пішаки
+        int up = us == WHITE ? 8 : -8;
+        int startRank = us == WHITE ? 1 : 6;
+        int lastRank = us == WHITE ? 7 : 0;
+        for (long bb = pieces[us * 6 + PAWN]; bb != 0; bb &= bb - 1) {
+            int from = Long.numberOfTrailingZeros(bb);
+            int to = from + up;
+            if (board[to] == EMPTY) {
+                if (to >>> 3 == lastRank) {
+                    count = addPromotions(moves, count, from, to, 0, tacticalOnly);
+                } else if (!tacticalOnly) {
+                    moves[count++] = move(from, to, QUIET);
+                    if (from >>> 3 == startRank && board[to + up] == EMPTY) {
+                        moves[count++] = move(from, to + up, DOUBLE_PUSH);
+                    }
+                }
+            }
+            for (long targets = PAWN_ATTACKS[us][from] & enemy; targets != 0; targets &= targets - 1) {
+                int target = Long.numberOfTrailingZeros(targets);
+                if (target >>> 3 == lastRank) {
+                    count = addPromotions(moves, count, from, target, CAPTURE, tacticalOnly);
+                } else {
+                    moves[count++] = move(from, target, CAPTURE);
+                }
+            }
+            if (epSquare >= 0 && (PAWN_ATTACKS[us][from] & (1L << epSquare)) != 0) {
+                moves[count++] = move(from, epSquare, EP_CAPTURE);
+            }
+        }
+
+        // Фігури
+        long targetMask = tacticalOnly ? enemy : ~own;
+        for (int type = KNIGHT; type <= KING; type++) {
+            for (long bb = pieces[us * 6 + type]; bb != 0; bb &= bb - 1) {
+                int from = Long.numberOfTrailingZeros(bb);
+                long attacks;
+                switch (type) {
+                    case KNIGHT: attacks = KNIGHT_ATTACKS[from]; break;
+                    case BISHOP: attacks = bishopAttacks(from, all); break;
+                    case ROOK: attacks = rookAttacks(from, all); break;
+                    case QUEEN: attacks = bishopAttacks(from, all) | rookAttacks(from, all); break;
+                    default: attacks = KING_ATTACKS[from]; break;
+                }
+                for (long targets = attacks & targetMask; targets != 0; targets &= targets - 1) {
+                    int to = Long.numberOfTrailingZeros(targets);
+                    moves[count++] = move(from, to, board[to] == EMPTY ? QUIET : CAPTURE);
+                }
+            }
+        }
+
+        // Рокіровка: поля між королем і турою порожні, король не під шахом і не проходить битих полів
+        if (!tacticalOnly && (castling & (us == WHITE ? 3 : 12)) != 0) {
+            int king = us == WHITE ? 4 : 60;
+            int kingSide = us == WHITE ? 1 : 4;
+            int queenSide = us == WHITE ? 2 : 8;
+            if ((castling & kingSide) != 0 && board[king + 1] == EMPTY && board[king + 2] == EMPTY
+                    && !isAttacked(king, them) && !isAttacked(king + 1, them) && !isAttacked(king + 2, them)) {
+                moves[count++] = move(king, king + 2, KING_CASTLE);
+            }
+            if ((castling & queenSide) != 0 && board[king - 1] == EMPTY && board[king - 2] == EMPTY
+                    && board[king - 3] == EMPTY
+                    && !isAttacked(king, them) && !isAttacked(king - 1, them) && !isAttacked(king - 2, them)) {
+                moves[count++] = move(king, king - 2, QUEEN_CASTLE);
+            }
+        }
+        return count;
+    }
+
+    private static int addPromotions(int[] moves, int count, int from, int to, int capture, boolean queenOnly) {
+        moves[count++] = move(from, to, PROMOTION | capture | (QUEEN - KNIGHT));
+        if (!queenOnly) {
+            for (int piece = KNIGHT; piece < QUEEN; piece++) {
+                moves[count++] = move(from, to, PROMOTION | capture | (piece - KNIGHT));
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Робить хід; якщо після нього король того, хто ходив, під шахом - відкочує і повертає false.
+     */
+    public boolean makeMove(int move) {
+        int from = from(move);
+        int to = to(move);
+        int flag = flag(move);
+        int us = side;
+
+        if (historySize == hashHistory.length) {
+            hashHistory = Arrays.copyOf(hashHistory, historySize * 2);
+            capturedHistory = Arrays.copyOf(capturedHistory, historySize * 2);
+            stateHistory = Arrays.copyOf(stateHistory, historySize * 2);
+        }
+        hashHistory[historySize] = hash;
+        stateHistory[historySize] = castling | (epSquare + 1) << 4 | halfmove << 11;
+
+        int captureSquare = flag == EP_CAPTURE ? to + (us == WHITE ? -8 : 8) : to;
+        int captured = (flag & CAPTURE) != 0 ? board[captureSquare] : EMPTY;
+        capturedHistory[historySize] = captured;
+        historySize++;
+
+        if (epSquare >= 0) hash ^= Z_EP_FILE[epSquare & 7];
+        hash ^= Z_CASTLE[castling];
+
+        if (captured != EMPTY) removePiece(captureSquare);
+        int piece = board[from];
+        movePiece(from, to);
+        if ((flag & PROMOTION) != 0) {
+            removePiece(to);
+            putPiece(to, us * 6 + KNIGHT + (flag & 3));
+        } else if (flag == KING_CASTLE) {
+            movePiece(from + 3, from + 1);
+        } else if (flag == QUEEN_CASTLE) {
+            movePiece(from - 4, from - 1);
+        }
+
+        castling &= CASTLE_MASK[from] & CASTLE_MASK[to];
+        hash ^= Z_CASTLE[castling];
+        epSquare = flag == DOUBLE_PUSH ? (from + to) >>> 1 : -1;
+        if (epSquare >= 0) hash ^= Z_EP_FILE[epSquare & 7];
+        halfmove = piece == us * 6 + PAWN || captured != EMPTY ? 0 : halfmove + 1;
+        side = us ^ 1;
+        hash ^= Z_SIDE;
+
+        if (isAttacked(Long.numberOfTrailingZeros(pieces[us * 6 + KING]), side)) {
+            unmakeMove(move);
+            return false;
+        }
+        return true;
+    }
+
+    public void unmakeMove(int move) {
+        int from = from(move);
+        int to = to(move);
+        int flag = flag(move);
+        side ^= 1;
+        int us = side;
+        historySize--;
+
+        if ((flag & PROMOTION) != 0) {
+            removePiece(to);
+            putPiece(to, us * 6 + PAWN);
+        } else if (flag == KING_CASTLE) {
+            movePiece(from + 1, from + 3);
+        } else if (flag == QUEEN_CASTLE) {
+            movePiece(from - 1, from - 4);
+        }
+        movePiece(to, from);
+        int captured = capturedHistory[historySize];
+        if (captured != EMPTY) {
+            putPiece(flag == EP_CAPTURE ? to + (us == WHITE ? -8 : 8) : to, captured);
+        }
+
+        int state = stateHistory[historySize];
+        castling = state & 15;
+        epSquare = ((state >>> 4) & 127) - 1;
+        halfmove = state >>> 11;
+        hash = hashHistory[historySize];
+    }
+
+    /**
+     * Кількість листків дерева ходів глибини depth - перевірка генератора на відомих позиціях.
+     */
+    public long perft(int depth) {
+        if (depth == 0) return 1;
+        int[] moves = new int[MAX_MOVES];
+        int count = generateMoves(moves, false);
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            if (makeMove(moves[i])) {
+                nodes += perft(depth - 1);
+                unmakeMove(moves[i]);
+            }
+        }
+        return nodes;
+    }
+
+    public boolean hasLegalMove() {
+        int[] moves = new int[MAX_MOVES];
+        int count = generateMoves(moves, false);
+        for (int i = 0; i < count; i++) {
+            if (makeMove(moves[i])) {
+                unmakeMove(moves[i]);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void putPiece(int square, int piece) {
+        long mask = 1L << square;
+        pieces[piece] |= mask;
+        occupied[piece / 6] |= mask;
+        board[square] = piece;
+        hash ^= Z_PIECE[piece * 64 + square];
+    }
+
+    private void removePiece(int square) {
+        int piece = board[square];
+        long mask = 1L << square;
+        pieces[piece] &= ~mask;
+        occupied[piece / 6] &= ~mask;
+        board[square] = EMPTY;
+        hash ^= Z_PIECE[piece * 64 + square];
+    }
+
+    private void movePiece(int from, int to) {
+        int piece = board[from];
+        long mask = 1L << from | 1L << to;
+        pieces[piece] ^= mask;
+        occupied[piece / 6] ^= mask;
+        board[from] = EMPTY;
+        board[to] = piece;
+        hash ^= Z_PIECE[piece * 64 + from] ^ Z_PIECE[piece * 64 + to];
+    }
+
+    static long bishopAttacks(int square, long occupied) {
+        return ray(2, square, occupied) | ray(3, square, occupied) | ray(6, square, occupied) | ray(7, square, occupied);
+    }
+
+    static long rookAttacks(int square, long occupied) {
+        return ray(0, square, occupied) | ray(1, square, occupied) | ray(4, square, occupied) | ray(5, square, occupied);
+    }
+
+    // Промінь до першої перешкоди включно
+    private static long ray(int dir, int square, long occupied) {
+        long attacks = RAYS[dir][square];
+        long blockers = attacks & occupied;
+        if (blockers != 0) {
+            int first = dir < 4 ? Long.numberOfTrailingZeros(blockers) : 63 - Long.numberOfLeadingZeros(blockers);
+            attacks ^= RAYS[dir][first];
+        }
+        return attacks;
+    }
+
+    private static long bit(int file, int rank) {
+        return file >= 0 && file < 8 && rank >= 0 && rank < 8 ? 1L << (rank * 8 + file) : 0;
+    }
+
+    static int move(int from, int to, int flag) {
+        return from | to << 6 | flag << 12;
+    }
+
+    static int from(int move) {
+        return move & 63;
+    }
+
+    static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    static int flag(int move) {
+        return move >>> 12;
+    }
+
+    static boolean isCapture(int move) {
+        return (flag(move) & CAPTURE) != 0;
+    }
+
+    static boolean isPromotion(int move) {
+        return (flag(move) & PROMOTION) != 0;
+    }
+
+    /**
+     * Запис ходу у форматі UCI: "e2e4", "e7e8q".
+     */
+    static String toUci(int move) {
+        String text = squareName(from(move)) + squareName(to(move));
+        return isPromotion(move) ? text + "nbrq".charAt(flag(move) & 3) : text;
+    }
+
+    static String squareName(int square) {
+        return "" + (char) ('a' + (square & 7)) + (char) ('1' + (square >>> 3));
+    }
+}
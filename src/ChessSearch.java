@@ -0,0 +1,466 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пошук ходу: negamax з альфа-бета відсіканням (PVS), ітеративне поглиблення, тихий пошук по взяттях.
+ *
+ * Паралельність - Lazy SMP: на ForkJoinPool запускається по задачі на потік, кожна зі своєю копією позиції
+ * шукає той самий корінь. Спільна в них лише TranspositionTable: що знайшов один потік, інші беруть з таблиці
+ * замість повторного перебору. Щоб потоки не йшли однаковим шляхом, допоміжні починають з різної глибини.
+ * Результат дає головна задача (0); щойно вона закінчує, зупиняються всі. На відміну від Young Brothers Wait
+ * тут немає розщеплення вузлів і синхронізації всередині дерева - лише прапорець зупинки і таблиця.
+ *
+ * Пошук обмежений бюджетом часу ходу: кожні 1024 вузли потік звіряється з годинником, а нову ітерацію
+ * головна задача не починає, якщо вже витрачено більше половини бюджету - вона б однаково не встигла.
+ */
+class ChessSearch implements AutoCloseable {
+
+    static final int INFINITY = 32000;
+    static final int MATE = 31000;
+    static final int MAX_DEPTH = 32;
+    private static final int MAX_PLY = 64;
+
+    private static final int[] PIECE_VALUE = {100, 320, 330, 500, 900, 0};
+
+    // Позиційні бонуси (Simplified Evaluation Function); рядки від 8-ї горизонталі до 1-ї, з боку білих
+    private static final int[][] PIECE_SQUARE = {
+            {
+                    0, 0, 0, 0, 0, 0, 0, 0,
+                    50, 50, 50, 50, 50, 50, 50, 50,
+                    10, 10, 20, 30, 30, 20, 10, 10,
+                    5, 5, 10, 25, 25, 10, 5, 5,
+                    0, 0, 0, 20, 20, 0, 0, 0,
+                    5, -5, -10, 0, 0, -10, -5, 5,
+                    5, 10, 10, -20, -20, 10, 10, 5,
+                    0, 0, 0, 0, 0, 0, 0, 0
+            }, {
+                    -50, -40, -30, -30, -30, -30, -40, -50,
+                    -40, -20, 0, 0, 0, 0, -20, -40,
+                    -30, 0, 10, 15, 15, 10, 0, -30,
+                    -30, 5, 15, 20, 20, 15, 5, -30,
+                    -30, 0, 15, 20, 20, 15, 0, -30,
+                    -30, 5, 10, 15, 15, 10, 5, -30,
+                    -40, -20, 0, 5, 5, 0, -20, -40,
+                    -50, -40, -30, -30, -30, -30, -40, -50
+            }, {
+                    -20, -10, -10, -10, -10, -10, -10, -20,
+                    -10, 0, 0, 0, 0, 0, 0, -10,
+                    -10, 0, 5, 10, 10, 5, 0, -10,
+                    -10, 5, 5, 10, 10, 5, 5, -10,
+                    -10, 0, 10, 10, 10, 10, 0, -10,
+                    -10, 10, 10, 10, 10, 10, 10, -10,
+                    -10, 5, 0, 0, 0, 0, 5, -10,
+                    -20, -10, -10, -10, -10, -10, -10, -20
+            }, {
+                    0, 0, 0, 0, 0, 0, 0, 0,
+                    5, 10, 10, 10, 10, 10, 10, 5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    0, 0, 0, 5, 5, 0, 0, 0
+            }, {
+                    -20, -10, -10, -5, -5, -10, -10, -20,
+                    -10, 0, 0, 0, 0, 0, 0, -10,
+                    -10, 0, 5, 5, 5, 5, 0, -10,
+                    -5, 0, 5, 5, 5, 5, 0, -5,
+                    0, 0, 5, 5, 5, 5, 0, -5,
+                    -10, 5, 5, 5, 5, 5, 0, -10,
+                    -10, 0, 5, 0, 0, 0, 0, -10,
+                    -20, -10, -10, -5, -5, -10, -10, -20
+            }, {
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -20, -30, -30, -40, -40, -30, -30, -20,
+                    -10, -20, -20, -20, -20, -20, -20, -10,
+                    20, 20, 0, 0, 0, 0, 20, 20,
+                    20, 30, 10, 0, 0, 10, 30, 20
+            }
+    };
+
+    private final ForkJoinPool pool;
+    private final TranspositionTable table;
+
+    /**
+     * @param threads   кількість потоків пошуку (розмір ForkJoinPool)
+     * @param tableBits розмір таблиці транспозицій - 2^tableBits записів
+     */
+    ChessSearch(int threads, int tableBits) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Потрібен хоча б один потік пошуку");
+        }
+        this.pool = new ForkJoinPool(threads);
+        this.table = new TranspositionTable(tableBits);
+    }
+
+    public int getThreads() {
+        return pool.getParallelism();
+    }
+
+    public Result search(ChessPosition root, long budgetNanos) throws InterruptedException {
+        return search(root, budgetNanos, MAX_DEPTH);
+    }
+
+    /**
+     * Найкращий хід для root не глибше maxDepth і не довше budgetNanos. Позиція root не змінюється.
+     * Якщо ходів немає (мат або пат), bestMove у результаті - 0.
+     */
+    public Result search(ChessPosition root, long budgetNanos, int maxDepth) throws InterruptedException {
+        Control control = new Control(budgetNanos);
+        int threads = pool.getParallelism();
+        List<Worker> workers = new ArrayList<>(threads);
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(threads);
+        for (int id = 0; id < threads; id++) {
+            Worker worker = new Worker(id, root.copy(), maxDepth, control);
+            workers.add(worker);
+            tasks.add(pool.submit(worker));
+        }
+        try {
+            tasks.get(0).get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Помилка пошуку", e.getCause());
+        } finally {
+            // Головна задача завершилась (або нас перервали) - допоміжні більше не потрібні
+            control.stop = true;
+            for (ForkJoinTask<?> task : tasks) {
+                task.quietlyJoin();
+            }
+        }
+
+        long nodes = 0;
+        for (Worker worker : workers) {
+            nodes += worker.nodes;
+        }
+        Worker main = workers.get(0);
+        return new Result(main.bestMove, main.bestScore, main.completedDepth, nodes, threads,
+                System.nanoTime() - control.start);
+    }
+
+    public void clearTable() {
+        table.clear();
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+        try {
+            pool.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Статична оцінка з боку того, хто ходить: матеріал плюс позиційні бонуси.
+     */
+    static int evaluate(ChessPosition position) {
+        int score = 0;
+        for (int type = ChessPosition.PAWN; type <= ChessPosition.KING; type++) {
+            int[] bonus = PIECE_SQUARE[type];
+            for (long bb = position.pieces(ChessPosition.WHITE, type); bb != 0; bb &= bb - 1) {
+                score += PIECE_VALUE[type] + bonus[Long.numberOfTrailingZeros(bb) ^ 56];
+            }
+            for (long bb = position.pieces(ChessPosition.BLACK, type); bb != 0; bb &= bb - 1) {
+                score -= PIECE_VALUE[type] + bonus[Long.numberOfTrailingZeros(bb)];
+            }
+        }
+        return position.sideToMove() == ChessPosition.WHITE ? score : -score;
+    }
+
+    // Спільний для потоків одного пошуку стан
+    private static final class Control {
+        final long start = System.nanoTime();
+        final long budgetNanos;
+        volatile boolean stop;
+
+        Control(long budgetNanos) {
+            this.budgetNanos = budgetNanos;
+        }
+
+        boolean outOfTime() {
+            return System.nanoTime() - start > budgetNanos;
+        }
+    }
+
+    // Один потік Lazy SMP: власна позиція, стеки ходів, killer-ходи і history; спільні лише table і control
+    private final class Worker implements Runnable {
+        private final int id;
+        private final ChessPosition position;
+        private final int maxDepth;
+        private final Control control;
+        private final int[][] moves = new int[MAX_PLY + 1][ChessPosition.MAX_MOVES];
+        private final int[][] scores = new int[MAX_PLY + 1][ChessPosition.MAX_MOVES];
+        private final int[][] killers = new int[MAX_PLY + 1][2];
+        private final int[] history = new int[12 * 64];
+        long nodes;
+        int bestMove;
+        int bestScore;
+        int completedDepth;
+
+        Worker(int id, ChessPosition position, int maxDepth, Control control) {
+            this.id = id;
+            this.position = position;
+            this.maxDepth = maxDepth;
+            this.control = control;
+        }
+
+        @Override
+        public void run() {
+            // Допоміжні потоки з непарним номером починають на 1 глибше - так вони рано заповнюють таблицю
+            // результатами, потрібними головному, замість дублювати його роботу
+            for (int depth = 1 + (id & 1); depth <= maxDepth && !control.stop; depth++) {
+                int score = searchRoot(depth);
+                if (id != 0) continue;
+                if (control.stop) break;
+                if (bestMove == 0) bestScore = score; // ходів немає: -MATE (мат) або 0 (пат)
+                completedDepth = depth;
+                if (Math.abs(score) > MATE - MAX_PLY) break; // знайдено мат - глибше шукати нема чого
+                if (System.nanoTime() - control.start > control.budgetNanos / 2) break;
+            }
+            if (id == 0) control.stop = true;
+        }
+
+        private int searchRoot(int depth) {
+            int[] list = moves[0];
+            int count = position.generateMoves(list, false);
+            long entry = table.probe(position.hash());
+            scoreMoves(list, scores[0], count, entry != 0 ? TranspositionTable.move(entry) : bestMove, 0);
+
+            int alpha = -INFINITY;
+            int iterationMove = 0;
+            for (int i = 0; i < count; i++) {
+                int move = pickNext(list, scores[0], i, count);
+                if (!position.makeMove(move)) continue;
+                int score;
+                if (iterationMove == 0) {
+                    score = -negamax(depth - 1, -INFINITY, -alpha, 1);
+                } else {
+                    score = -negamax(depth - 1, -alpha - 1, -alpha, 1);
+                    if (score > alpha && !control.stop) score = -negamax(depth - 1, -INFINITY, -alpha, 1);
+                }
+                position.unmakeMove(move);
+                if (control.stop) break;
+                if (score > alpha || iterationMove == 0) {
+                    alpha = score;
+                    iterationMove = move;
+                }
+            }
+            // Перервану ітерацію беремо, лише якщо вона встигла повністю оцінити хоча б один хід
+            // (першим іде найкращий хід попередньої ітерації, тож гіршого вибору це не дасть)
+            if (id == 0 && iterationMove != 0 && (!control.stop || bestMove == 0 || alpha > bestScore)) {
+                bestMove = iterationMove;
+                bestScore = alpha;
+            }
+            if (iterationMove == 0) {
+                return position.inCheck() ? -MATE : 0;
+            }
+            if (!control.stop) {
+                table.store(position.hash(), iterationMove, alpha, depth, TranspositionTable.EXACT);
+            }
+            return alpha;
+        }
+
+        private int negamax(int depth, int alpha, int beta, int ply) {
+            if ((++nodes & 1023) == 0 && control.outOfTime()) control.stop = true;
+            if (control.stop) return 0;
+            if (position.isRepetition() || position.halfmoveClock() >= 100) return 0;
+            boolean inCheck = position.inCheck();
+            if (inCheck) depth++; // шах не обриваємо на горизонті
+            if (depth <= 0) return quiesce(alpha, beta, ply);
+            if (ply >= MAX_PLY) return evaluate(position);
+
+            long hash = position.hash();
+            long entry = table.probe(hash);
+            int ttMove = 0;
+            if (entry != 0) {
+                ttMove = TranspositionTable.move(entry);
+                if (TranspositionTable.depth(entry) >= depth) {
+                    int score = fromTable(TranspositionTable.score(entry), ply);
+                    int bound = TranspositionTable.bound(entry);
+                    if (bound == TranspositionTable.EXACT
+                            || bound == TranspositionTable.LOWER && score >= beta
+                            || bound == TranspositionTable.UPPER && score <= alpha) {
+                        return score;
+                    }
+                }
+            }
+
+            int[] list = moves[ply];
+            int[] order = scores[ply];
+            int count = position.generateMoves(list, false);
+            scoreMoves(list, order, count, ttMove, ply);
+
+            int originalAlpha = alpha;
+            int best = -INFINITY;
+            int nodeBest = 0;
+            int legal = 0;
+            for (int i = 0; i < count; i++) {
+                int move = pickNext(list, order, i, count);
+                if (!position.makeMove(move)) continue;
+                legal++;
+                int score;
+                if (legal == 1) {
+                    score = -negamax(depth - 1, -beta, -alpha, ply + 1);
+                } else {
+                    // Нульове вікно: лише перевірка, що хід не кращий за вже знайдений; якщо кращий - повний пошук
+                    score = -negamax(depth - 1, -alpha - 1, -alpha, ply + 1);
+                    if (score > alpha && score < beta) score = -negamax(depth - 1, -beta, -alpha, ply + 1);
+                }
+                position.unmakeMove(move);
+                if (control.stop) return 0;
+
+                if (score > best) {
+                    best = score;
+                    nodeBest = move;
+                    if (score > alpha) {
+                        alpha = score;
+                        if (alpha >= beta) {
+                            if (!ChessPosition.isCapture(move)) rememberQuiet(move, depth, ply);
+                            break;
+                        }
+                    }
+                }
+            }
+            if (legal == 0) {
+                return inCheck ? -MATE + ply : 0;
+            }
+
+            int bound = best >= beta ? TranspositionTable.LOWER
+                    : best > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+            table.store(hash, nodeBest, toTable(best, ply), depth, bound);
+            return best;
+        }
+
+        // Лише взяття і перетворення: не оцінюємо позицію посеред розміну
+        private int quiesce(int alpha, int beta, int ply) {
+            if ((++nodes & 1023) == 0 && control.outOfTime()) control.stop = true;
+            if (control.stop) return 0;
+            int standPat = evaluate(position);
+            if (standPat >= beta || ply >= MAX_PLY) return standPat;
+            if (standPat > alpha) alpha = standPat;
+
+            int[] list = moves[ply];
+            int[] order = scores[ply];
+            int count = position.generateMoves(list, true);
+            scoreMoves(list, order, count, 0, ply);
+            for (int i = 0; i < count; i++) {
+                int move = pickNext(list, order, i, count);
+                if (!position.makeMove(move)) continue;
+                int score = -quiesce(-beta, -alpha, ply + 1);
+                position.unmakeMove(move);
+                if (control.stop) return 0;
+                if (score >= beta) return score;
+                if (score > alpha) alpha = score;
+            }
+            return alpha;
+        }
+
+        // Порядок: хід з таблиці, взяття (MVV-LVA), killer-ходи, решта за history
+        private void scoreMoves(int[] list, int[] order, int count, int ttMove, int ply) {
+            for (int i = 0; i < count; i++) {
+                int move = list[i];
+                int piece = position.pieceAt(ChessPosition.from(move));
+                if (move == ttMove) {
+                    order[i] = 1_000_000;
+                } else if (ChessPosition.isCapture(move)) {
+                    int victim = position.pieceAt(ChessPosition.to(move));
+                    int victimValue = victim == ChessPosition.EMPTY ? PIECE_VALUE[ChessPosition.PAWN] : PIECE_VALUE[victim % 6];
+                    order[i] = 100_000 + victimValue * 10 - piece % 6;
+                } else if (ChessPosition.isPromotion(move)) {
+                    order[i] = 90_000;
+                } else if (move == killers[ply][0]) {
+                    order[i] = 80_000;
+                } else if (move == killers[ply][1]) {
+                    order[i] = 79_000;
+                } else {
+                    order[i] = history[piece * 64 + ChessPosition.to(move)];
+                }
+            }
+        }
+
+        // Вибір найкращого з решти ходів: сортувати весь список марно, бо часто відсікаємо після першого
+        private int pickNext(int[] list, int[] order, int from, int count) {
+            int best = from;
+            for (int i = from + 1; i < count; i++) {
+                if (order[i] > order[best]) best = i;
+            }
+            int move = list[best];
+            list[best] = list[from];
+            list[from] = move;
+            int score = order[best];
+            order[best] = order[from];
+            order[from] = score;
+            return move;
+        }
+
+        private void rememberQuiet(int move, int depth, int ply) {
+            if (killers[ply][0] != move) {
+                killers[ply][1] = killers[ply][0];
+                killers[ply][0] = move;
+            }
+            int index = position.pieceAt(ChessPosition.from(move)) * 64 + ChessPosition.to(move);
+            history[index] += depth * depth;
+            if (history[index] > 50_000) {
+                for (int i = 0; i < history.length; i++) history[i] >>= 1;
+            }
+        }
+    }
+
+    // Оцінка мату в таблиці - відносно поточного вузла, а не кореня: та сама позиція трапляється на різних ply
+    private static int toTable(int score, int ply) {
+        return score > MATE - MAX_PLY ? score + ply : score < -MATE + MAX_PLY ? score - ply : score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        return score > MATE - MAX_PLY ? score - ply : score < -MATE + MAX_PLY ? score + ply : score;
+    }
+
+    /**
+     * Підсумок пошуку. score - у сантипішаках з боку того, хто ходить; depth - остання завершена ітерація.
+     */
+    static final class Result {
+        final int bestMove;
+        final int score;
+        final int depth;
+        final long nodes;
+        final int threads;
+        final long elapsedNanos;
+
+        Result(int bestMove, int score, int depth, long nodes, int threads, long elapsedNanos) {
+            this.bestMove = bestMove;
+            this.score = score;
+            this.depth = depth;
+            this.nodes = nodes;
+            this.threads = threads;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long getNodes() {
+            return nodes;
+        }
+
+        public double nodesPerSecond() {
+            return elapsedNanos == 0 ? 0 : nodes * 1e9 / elapsedNanos;
+        }
+
+        public boolean isMate() {
+            return Math.abs(score) > MATE - MAX_PLY;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("хід %s, оцінка %s, глибина %d, вузлів %d, %.0f вузлів/с, потоків %d, %.0f мс",
+                    bestMove == 0 ? "-" : ChessPosition.toUci(bestMove),
+                    bestMove == 0 ? (score < 0 ? "мат" : "пат") : isMate() ? (score > 0 ? "мат за " : "отримає мат за ") + (MATE - Math.abs(score) + 1) / 2 + " х."
+                            : String.format("%+.2f", score / 100.0),
+                    depth, nodes, nodesPerSecond(), threads, elapsedNanos / 1e6);
+        }
+    }
+}
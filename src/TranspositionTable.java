@@ -0,0 +1,82 @@
+import java.util.Arrays;
+
+/**
+ * Таблиця транспозицій, спільна для всіх потоків пошуку, без блокувань.
+ * Запис - два long: keys[i] = hash ^ data і data[i] = data (хід, оцінка, глибина, тип межі).
+ * Записи і читання не синхронізовані: інший потік може перезаписати слот посеред нашого читання,
+ * і ми отримаємо key від одного запису, а data від іншого. Тоді keys[i] ^ data[i] != hash і запис
+ * просто вважається відсутнім - тому "розірваний" запис ніколи не потрапляє в пошук (схема Hyatt/Mann).
+ * Дешевше за будь-яку синхронізацію, а зрідка втрачений запис для пошуку лише трохи зайвої роботи.
+ */
+class TranspositionTable {
+
+    static final int EXACT = 0;
+    static final int LOWER = 1; // оцінка >= score (відсікання beta)
+    static final int UPPER = 2; // оцінка <= score (жоден хід не підняв alpha)
+
+    private final long[] keys;
+    private final long[] data;
+    private final int mask;
+
+    /**
+     * @param sizeBits розмір таблиці - 2^sizeBits записів по 16 байт
+     */
+    TranspositionTable(int sizeBits) {
+        if (sizeBits < 1 || sizeBits > 28) {
+            throw new IllegalArgumentException("Розмір таблиці: від 2^1 до 2^28 записів");
+        }
+        keys = new long[1 << sizeBits];
+        data = new long[1 << sizeBits];
+        mask = (1 << sizeBits) - 1;
+    }
+
+    /**
+     * Упакований запис для hash або 0, якщо його немає. Поля дістаються статичними move/score/depth/bound.
+     */
+    public long probe(long hash) {
+        int index = (int) hash & mask;
+        long entry = data[index];
+        return entry != 0 && (keys[index] ^ entry) == hash ? entry : 0;
+    }
+
+    public void store(long hash, int move, int score, int depth, int bound) {
+        int index = (int) hash & mask;
+        // Заміна: інша позиція або не менша глибина - свіжий запис корисніший за старий
+        long old = data[index];
+        if (old != 0 && (keys[index] ^ old) == hash && depth(old) > depth) {
+            return;
+        }
+        long entry = (move & 0xFFFFL)
+                | (score & 0xFFFFL) << 16
+                | (depth & 0xFFL) << 32
+                | (long) bound << 40
+                | 1L << 42; // ненульовий навіть для порожнього ходу з оцінкою 0
+        keys[index] = hash ^ entry;
+        data[index] = entry;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(data, 0);
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    static int move(long entry) {
+        return (int) (entry & 0xFFFF);
+    }
+
+    static int score(long entry) {
+        return (short) (entry >>> 16);
+    }
+
+    static int depth(long entry) {
+        return (int) (entry >>> 32) & 0xFF;
+    }
+
+    static int bound(long entry) {
+        return (int) (entry >>> 40) & 3;
+    }
+}
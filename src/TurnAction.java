@@ -0,0 +1,11 @@
+/**
+ * Один хід учасника партії для TurnScheduler. Виняток завершує всю партію.
+ * Для TurnScheduler.runEventLoop хід не повинен блокуватися - він займає потік спільного пулу.
+ */
+interface TurnAction {
+
+    TurnAction NONE = (game, party, move) -> {
+    };
+
+    void play(int game, int party, int move) throws Exception;
+}
@@ -0,0 +1,84 @@
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Передача ходу по колу між N учасниками однієї партії - заміна пари семафорів з ChessGame.
+ * Чий хід, визначає одне volatile-поле turn; учасник, що чекає, паркується (LockSupport.park),
+ * а той, хто передає хід, будить лише наступного (unpark) - без черг і блокувань семафора.
+ * На багатоядерній машині перед паркуванням виконується коротке очікування в циклі (onSpinWait),
+ * бо хід часто повертається швидше, ніж потік встигає заснути і прокинутися.
+ *
+ * close() завершує партію: усі, хто чекає, прокидаються і отримують false з awaitTurn().
+ * Саме так треба виходити з гри після переривання - а не передавати хід далі, як робив finally у ChessPlayer.
+ */
+class TurnRing {
+
+    private static final int SPINS = Runtime.getRuntime().availableProcessors() > 1 ? 256 : 0;
+
+    private final int size;
+    private final AtomicReferenceArray<Thread> waiters;
+    private volatile int turn;
+    private volatile boolean closed;
+    // Змінює лише той, чий зараз хід; запис turn після нього публікує значення
+    private long handoffs;
+
+    TurnRing(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Потрібен хоча б один учасник");
+        }
+        this.size = size;
+        this.waiters = new AtomicReferenceArray<>(size);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Чекає на хід учасника party. true - хід отримано, false - партію завершено (close()).
+     */
+    public boolean awaitTurn(int party) throws InterruptedException {
+        // Спершу реєструємося, потім перевіряємо turn: той, хто передає хід, або побачить потік, або хід уже наш
+        waiters.set(party, Thread.currentThread());
+        for (int spin = 0; ; spin++) {
+            if (closed) return false;
+            if (turn == party) return true;
+            if (spin < SPINS) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.park(this);
+                if (Thread.interrupted()) throw new InterruptedException();
+            }
+        }
+    }
+
+    /**
+     * Передає хід наступному учаснику; викликати може лише той, чий зараз хід.
+     */
+    public void passTurn(int party) {
+        if (turn != party) {
+            throw new IllegalStateException("Зараз не хід учасника " + party);
+        }
+        int next = party + 1 == size ? 0 : party + 1;
+        handoffs++;
+        turn = next;
+        Thread waiter = waiters.get(next);
+        if (waiter != null) LockSupport.unpark(waiter);
+    }
+
+    public void close() {
+        closed = true;
+        for (int i = 0; i < size; i++) {
+            Thread waiter = waiters.get(i);
+            if (waiter != null) LockSupport.unpark(waiter);
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public long getHandoffs() {
+        return handoffs;
+    }
+}
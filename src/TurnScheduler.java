@@ -0,0 +1,211 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Одночасний запуск багатьох покрокових партій по N учасників, кожен учасник робить moves ходів.
+ *
+ * runThreaded - потік на учасника, передача ходу через TurnRing (park/unpark). Потоки віртуальні,
+ * якщо JDK їх підтримує (21+), інакше звичайні з малим стеком - тоді games * parties обмежене лімітом потоків ОС.
+ * runEventLoop - невеликий пул потоків; партія - це задача, що робить до movesPerSlice ходів поспіль
+ * (передача ходу всередині партії - просто наступний індекс учасника) і знову стає у чергу пулу,
+ * щоб інші партії теж просувалися. Потоків стільки, скільки задано, незалежно від кількості партій.
+ */
+class TurnScheduler {
+
+    private TurnScheduler() {
+    }
+
+    public static Result runThreaded(int games, int parties, int moves, TurnAction action) throws InterruptedException {
+        return runThreaded(games, parties, moves, action, defaultThreadFactory());
+    }
+
+    public static Result runThreaded(int games, int parties, int moves, TurnAction action, ThreadFactory factory)
+            throws InterruptedException {
+        LongAdder played = new LongAdder();
+        AtomicInteger failed = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>(games * parties);
+        long start = System.nanoTime();
+
+        for (int game = 0; game < games; game++) {
+            TurnRing ring = new TurnRing(parties);
+            for (int party = 0; party < parties; party++) {
+                int g = game;
+                int p = party;
+                Thread thread = factory.newThread(() -> {
+                    try {
+                        for (int move = 1; move <= moves; move++) {
+                            if (!ring.awaitTurn(p)) return;
+                            action.play(g, p, move);
+                            played.increment();
+                            ring.passTurn(p);
+                        }
+                    } catch (Exception e) {
+                        // Учасник вибув - партія завершується для всіх, ніхто не чекає вічно
+                        if (!ring.isClosed()) failed.incrementAndGet();
+                        ring.close();
+                        if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return new Result(games, parties, played.sum(), failed.get(), System.nanoTime() - start);
+    }
+
+    public static Result runEventLoop(int games, int parties, int moves, TurnAction action, int threads, int movesPerSlice)
+            throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "turn-loop");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            CountDownLatch done = new CountDownLatch(games);
+            LongAdder played = new LongAdder();
+            AtomicInteger failed = new AtomicInteger();
+            long start = System.nanoTime();
+            for (int game = 0; game < games; game++) {
+                pool.execute(new GameTask(game, parties, moves, movesPerSlice, action, pool, done, played, failed));
+            }
+            done.await();
+            return new Result(games, parties, played.sum(), failed.get(), System.nanoTime() - start);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Фабрика віртуальних потоків або null, якщо JDK їх не підтримує; визначається один раз
+    private static final ThreadFactory VIRTUAL_FACTORY = virtualThreadFactory();
+
+    /**
+     * Віртуальні потоки (JDK 21+, через reflection, бо збірка під Java 17) або daemon-потоки зі стеком 256 КБ.
+     */
+    static ThreadFactory defaultThreadFactory() {
+        if (VIRTUAL_FACTORY != null) {
+            return VIRTUAL_FACTORY;
+        }
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(null, runnable, "turn-" + counter.incrementAndGet(), 256 * 1024);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Чи створює defaultThreadFactory() віртуальні потоки.
+     */
+    public static boolean isVirtualAvailable() {
+        return VIRTUAL_FACTORY != null;
+    }
+
+    // Методи шукаються у публічному інтерфейсі Thread.Builder: клас самого builder-а непублічний,
+    // і виклик його методів через reflection заборонено
+    private static ThreadFactory virtualThreadFactory() {
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, "turn-", 1L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // JDK 17 або віртуальні потоки ще у preview і не ввімкнені
+            return null;
+        }
+    }
+
+    // Стан однієї партії; у кожен момент виконується не більше одного екземпляра задачі,
+    // а execute() дає happens-before між зрізами, тому поля не потребують синхронізації
+    private static final class GameTask implements Runnable {
+        private final int game;
+        private final int parties;
+        private final int moves;
+        private final int movesPerSlice;
+        private final TurnAction action;
+        private final ExecutorService pool;
+        private final CountDownLatch done;
+        private final LongAdder played;
+        private final AtomicInteger failed;
+        private int party;
+        private int move = 1;
+
+        GameTask(int game, int parties, int moves, int movesPerSlice, TurnAction action, ExecutorService pool,
+                 CountDownLatch done, LongAdder played, AtomicInteger failed) {
+            this.game = game;
+            this.parties = parties;
+            this.moves = moves;
+            this.movesPerSlice = movesPerSlice;
+            this.action = action;
+            this.pool = pool;
+            this.done = done;
+            this.played = played;
+            this.failed = failed;
+        }
+
+        @Override
+        public void run() {
+            int made = 0;
+            try {
+                for (int i = 0; i < movesPerSlice; i++) {
+                    if (move > moves) {
+                        played.add(made);
+                        done.countDown();
+                        return;
+                    }
+                    action.play(game, party, move);
+                    made++;
+                    // Передача ходу: наступний учасник; після останнього - наступне коло
+                    if (++party == parties) {
+                        party = 0;
+                        move++;
+                    }
+                }
+            } catch (Exception e) {
+                played.add(made);
+                failed.incrementAndGet();
+                done.countDown();
+                return;
+            }
+            played.add(made);
+            pool.execute(this);
+        }
+    }
+
+    /**
+     * Підсумок запуску: кількість зроблених ходів (= передач ходу) і час.
+     */
+    static final class Result {
+        final int games;
+        final int parties;
+        final long moves;
+        final int failedGames;
+        final long elapsedNanos;
+
+        Result(int games, int parties, long moves, int failedGames, long elapsedNanos) {
+            this.games = games;
+            this.parties = parties;
+            this.moves = moves;
+            this.failedGames = failedGames;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public double handoffsPerSecond() {
+            return elapsedNanos == 0 ? 0 : moves * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("партій: %d x %d гравців, ходів: %d, перервано партій: %d, час: %.1f мс, %.0f передач ходу/с",
+                    games, parties, moves, failedGames, elapsedNanos / 1e6, handoffsPerSecond());
+        }
+    }
+}